@@ -1,11 +1,14 @@
 package uk.ac.newcastle.enterprisemiddleware.client;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
 /**
  * REST Client for Hotel Booking Service
+ * The Async methods return without waiting for the response, so no thread is held during the call;
+ * use subscribeAsCompletionStage() where a CompletionStage is needed
  */
 @Path("/bookings")
 @RegisterRestClient(configKey = "hotel-api")
@@ -25,5 +28,17 @@ public interface HotelServiceClient {
     @DELETE
     @Path("/{id}")
     void cancelBooking(@PathParam("id") Long id);
-}
 
+    /**
+     * Create a hotel booking without blocking the calling thread
+     */
+    @POST
+    Uni<HotelBookingResponse> createBookingAsync(HotelBookingRequest request);
+
+    /**
+     * Cancel a hotel booking without blocking the calling thread
+     */
+    @DELETE
+    @Path("/{id}")
+    Uni<Void> cancelBookingAsync(@PathParam("id") Long id);
+}
@@ -1,5 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.client;
 
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.POST;
@@ -12,6 +13,8 @@ import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
 /**
  * REST Client for external Taxi Service
+ * The Async methods return without waiting for the response, so no thread is held during the call;
+ * use subscribeAsCompletionStage() where a CompletionStage is needed
  */
 @RegisterRestClient(configKey = "taxi-api")
 @Path("/bookings")
@@ -35,5 +38,21 @@ public interface TaxiServiceClient {
     @DELETE
     @Path("/{id}")
     Response cancelBooking(@PathParam("id") Long id);
-}
 
+    /**
+     * Create a taxi booking without blocking the calling thread
+     * @param request Taxi booking request
+     * @return Taxi booking response, when it arrives
+     */
+    @POST
+    Uni<TaxiBookingResponse> createBookingAsync(TaxiBookingRequest request);
+
+    /**
+     * Cancel a taxi booking without blocking the calling thread
+     * @param id Booking ID
+     * @return Response, when it arrives
+     */
+    @DELETE
+    @Path("/{id}")
+    Uni<Response> cancelBookingAsync(@PathParam("id") Long id);
+}
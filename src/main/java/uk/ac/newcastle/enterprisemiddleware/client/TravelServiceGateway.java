@@ -0,0 +1,123 @@
+package uk.ac.newcastle.enterprisemiddleware.client;
+
+import io.smallrye.faulttolerance.api.CircuitBreakerMaintenance;
+import io.smallrye.faulttolerance.api.CircuitBreakerName;
+import io.smallrye.faulttolerance.api.CircuitBreakerState;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+/**
+ * Fault-tolerant access to the external hotel and taxi services.
+ *
+ * Every call is bounded by a timeout, so a slow service can no longer hold a request for the
+ * client's default read timeout. Bookings also go through a bulkhead, which caps the calls in
+ * flight per service and rejects the rest straight away, and a circuit breaker per service, which
+ * fails fast while that service is unhealthy. A 4xx answer (such as "fully booked") is a valid
+ * reply from a healthy service and does not count towards opening the circuit.
+ *
+ * Cancellations are compensations and must be attempted even while the circuit is open, so they
+ * have a timeout only.
+ *
+ * The limits are set with the MicroProfile Fault Tolerance keys in application.properties, and the
+ * circuit breaker state, bulkhead usage and timeouts are published as ft_* metrics at /q/metrics.
+ */
+@ApplicationScoped
+public class TravelServiceGateway {
+
+    public static final String HOTEL = "hotel-api";
+    public static final String TAXI = "taxi-api";
+
+    @Inject
+    @RestClient
+    HotelServiceClient hotelServiceClient;
+
+    @Inject
+    @RestClient
+    TaxiServiceClient taxiServiceClient;
+
+    @Inject
+    CircuitBreakerMaintenance circuitBreakers;
+
+    /**
+     * Create a hotel booking without blocking the calling thread
+     *
+     * @param request Hotel booking request
+     * @return Hotel booking ID, when it arrives
+     */
+    @Timeout(3000)
+    @Bulkhead(value = 32, waitingTaskQueue = 32)
+    @CircuitBreaker(requestVolumeThreshold = 10, failureRatio = 0.5, delay = 10000, successThreshold = 2,
+            skipOn = ClientErrorException.class)
+    @CircuitBreakerName(HOTEL)
+    public Uni<Long> bookHotel(HotelBookingRequest request) {
+        return rejections(hotelServiceClient.createBookingAsync(request).map(HotelBookingResponse::getId));
+    }
+
+    /**
+     * Cancel a hotel booking without blocking the calling thread
+     *
+     * @param id Hotel booking ID
+     * @return Completion of the cancellation
+     */
+    @Timeout(3000)
+    public Uni<Void> cancelHotel(Long id) {
+        return hotelServiceClient.cancelBookingAsync(id);
+    }
+
+    /**
+     * Create a taxi booking without blocking the calling thread
+     *
+     * @param request Taxi booking request
+     * @return Taxi booking ID, when it arrives
+     */
+    @Timeout(3000)
+    @Bulkhead(value = 32, waitingTaskQueue = 32)
+    @CircuitBreaker(requestVolumeThreshold = 10, failureRatio = 0.5, delay = 10000, successThreshold = 2,
+            skipOn = ClientErrorException.class)
+    @CircuitBreakerName(TAXI)
+    public Uni<Long> bookTaxi(TaxiBookingRequest request) {
+        return rejections(taxiServiceClient.createBookingAsync(request).map(TaxiBookingResponse::getId));
+    }
+
+    /**
+     * Cancel a taxi booking without blocking the calling thread
+     *
+     * @param id Taxi booking ID
+     * @return Completion of the cancellation
+     */
+    @Timeout(3000)
+    public Uni<Void> cancelTaxi(Long id) {
+        return taxiServiceClient.cancelBookingAsync(id).replaceWithVoid();
+    }
+
+    /**
+     * Current circuit breaker state of a service
+     *
+     * @param service {@link #HOTEL} or {@link #TAXI}
+     * @return CLOSED, OPEN or HALF_OPEN
+     */
+    public CircuitBreakerState state(String service) {
+        return circuitBreakers.currentState(service);
+    }
+
+    /**
+     * The REST client reports every error status as a plain WebApplicationException; a 4xx becomes a
+     * ClientErrorException here so the circuit breakers can tell rejections from failures.
+     */
+    private static Uni<Long> rejections(Uni<Long> booking) {
+        return booking.onFailure(WebApplicationException.class).transform(e -> {
+            WebApplicationException failure = (WebApplicationException) e;
+            return failure.getResponse().getStatusInfo().getFamily() == Response.Status.Family.CLIENT_ERROR
+                    ? new ClientErrorException(failure.getMessage(), failure.getResponse(), failure)
+                    : failure;
+        });
+    }
+}
@@ -10,11 +10,21 @@ import java.util.Objects;
  * Booking entity representing a booking in the flight booking system.
  */
 @Entity
-@Table(name = "Booking")
+@Table(name = "Booking",
+        uniqueConstraints = @UniqueConstraint(name = Booking.CUSTOMER_COMMODITY_CONSTRAINT,
+                columnNames = {"customer_id", "commodity_id"}),
+        indexes = @Index(name = "idx_booking_commodity", columnList = "commodity_id"))
 public class Booking {
 
+    /**
+     * A customer can book a commodity only once; the unique index also serves lookups by customer.
+     */
+    public static final String CUSTOMER_COMMODITY_CONSTRAINT = "uk_booking_customer_commodity";
+
+    // Sequence ids (not IDENTITY) let Hibernate batch booking inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "Booking_SEQ", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -22,30 +32,42 @@ public class Booking {
     private LocalDate bookingDate;
 
     @NotNull
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
     private Customer customer;
 
     @NotNull
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "commodity_id")
     private Commodity commodity;
 
+    @NotNull
+    @Min(value = 1)
+    @Column(name = "seats")
+    private Integer seats;
+
     // Constructors
     public Booking() {
         this.bookingDate = LocalDate.now();
+        this.seats = 1;
     }
 
     public Booking(Customer customer, Commodity commodity) {
+        this(customer, commodity, 1);
+    }
+
+    public Booking(Customer customer, Commodity commodity, Integer seats) {
         this.bookingDate = LocalDate.now();
         this.customer = customer;
         this.commodity = commodity;
+        this.seats = seats;
     }
 
     public Booking(LocalDate bookingDate, Customer customer, Commodity commodity) {
         this.bookingDate = bookingDate;
         this.customer = customer;
         this.commodity = commodity;
+        this.seats = 1;
     }
 
     // Getters and Setters
@@ -81,6 +103,14 @@ public class Booking {
         this.commodity = commodity;
     }
 
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public void setSeats(Integer seats) {
+        this.seats = seats;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -101,6 +131,7 @@ public class Booking {
                 ", bookingDate=" + bookingDate +
                 ", customerId=" + (customer != null ? customer.getId() : null) +
                 ", commodityId=" + (commodity != null ? commodity.getId() : null) +
+                ", seats=" + seats +
                 '}';
     }
 }
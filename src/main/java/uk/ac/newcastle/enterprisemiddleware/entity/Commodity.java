@@ -1,5 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.util.ArrayList;
@@ -10,11 +11,14 @@ import java.util.Objects;
  * Commodity entity representing a flight or service in the booking system.
  */
 @Entity
-@Table(name = "Commodity")
+@Cacheable
+@Table(name = "Commodity", indexes = @Index(name = "idx_commodity_quantity", columnList = "quantity"))
 public class Commodity {
 
+    // Sequence ids (not IDENTITY) let Hibernate batch commodity inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "commodity_seq")
+    @SequenceGenerator(name = "commodity_seq", sequenceName = "Commodity_SEQ", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -36,7 +40,9 @@ public class Commodity {
     @Column(name = "quantity")
     private Integer quantity;
 
-    @OneToMany(mappedBy = "commodity", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Not cascaded: CommodityService deletes the bookings in bulk without loading them
+    @JsonIgnore
+    @OneToMany(mappedBy = "commodity")
     private List<Booking> bookings = new ArrayList<>();
 
     // Constructors
@@ -1,5 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.util.ArrayList;
@@ -10,11 +11,14 @@ import java.util.Objects;
  * Customer entity representing a customer in the flight booking system.
  */
 @Entity
-@Table(name = "Customer", uniqueConstraints = @UniqueConstraint(columnNames = "email"))
+@Cacheable
+@Table(name = "Customer", uniqueConstraints = @UniqueConstraint(name = "uk_customer_email", columnNames = "email"))
 public class Customer {
 
+    // Sequence ids (not IDENTITY) let Hibernate batch customer inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", sequenceName = "Customer_SEQ", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -37,7 +41,9 @@ public class Customer {
     @Column(name = "phoneNumber")
     private String phoneNumber;
 
-    @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Not cascaded: CustomerService deletes the bookings in bulk without loading them
+    @JsonIgnore
+    @OneToMany(mappedBy = "customer")
     private List<Booking> bookings = new ArrayList<>();
 
     // Constructors
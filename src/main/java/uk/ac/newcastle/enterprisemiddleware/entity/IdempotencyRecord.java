@@ -0,0 +1,109 @@
+package uk.ac.newcastle.enterprisemiddleware.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Stored response of a request made with an Idempotency-Key header, replayed when the key is reused.
+ */
+@Entity
+@Table(name = "IdempotencyRecord", indexes = @Index(name = "idx_idempotency_created", columnList = "createdAt"))
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "id", length = 320)
+    private String id;
+
+    @NotNull
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+
+    @NotNull
+    @Column(name = "status")
+    private Integer status;
+
+    @Lob
+    @Column(name = "body")
+    private String body;
+
+    @NotNull
+    @Column(name = "createdAt")
+    private Instant createdAt;
+
+    // Constructors
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String id, String fingerprint, Integer status, String body, Instant createdAt) {
+        this.id = id;
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.body = body;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IdempotencyRecord that = (IdempotencyRecord) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "id='" + id + '\'' +
+                ", status=" + status +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
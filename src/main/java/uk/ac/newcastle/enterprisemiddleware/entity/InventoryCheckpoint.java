@@ -0,0 +1,69 @@
+package uk.ac.newcastle.enterprisemiddleware.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.util.Objects;
+
+/**
+ * Number of booked seats per commodity that is already reflected in {@link Commodity#getQuantity()}.
+ * Used by the in-memory inventory ledger to detect unflushed bookings after a crash.
+ */
+@Entity
+@Table(name = "InventoryCheckpoint")
+public class InventoryCheckpoint {
+
+    @Id
+    @Column(name = "commodity_id")
+    private Long commodityId;
+
+    @NotNull
+    @Column(name = "bookedSeats")
+    private Long bookedSeats;
+
+    // Constructors
+    public InventoryCheckpoint() {
+    }
+
+    public InventoryCheckpoint(Long commodityId, Long bookedSeats) {
+        this.commodityId = commodityId;
+        this.bookedSeats = bookedSeats;
+    }
+
+    // Getters and Setters
+    public Long getCommodityId() {
+        return commodityId;
+    }
+
+    public void setCommodityId(Long commodityId) {
+        this.commodityId = commodityId;
+    }
+
+    public Long getBookedSeats() {
+        return bookedSeats;
+    }
+
+    public void setBookedSeats(Long bookedSeats) {
+        this.bookedSeats = bookedSeats;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        InventoryCheckpoint that = (InventoryCheckpoint) o;
+        return Objects.equals(commodityId, that.commodityId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(commodityId);
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryCheckpoint{" +
+                "commodityId=" + commodityId +
+                ", bookedSeats=" + bookedSeats +
+                '}';
+    }
+}
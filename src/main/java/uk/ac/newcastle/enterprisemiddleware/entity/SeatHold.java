@@ -0,0 +1,98 @@
+package uk.ac.newcastle.enterprisemiddleware.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * SeatHold entity representing seats reserved on a commodity for a limited time before booking.
+ */
+@Entity
+@Table(name = "SeatHold", indexes = @Index(name = "idx_seathold_commodity", columnList = "commodity_id"))
+public class SeatHold {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @NotNull
+    @Column(name = "commodity_id")
+    private Long commodityId;
+
+    @NotNull
+    @Min(value = 0)
+    @Column(name = "seats")
+    private Integer seats;
+
+    @NotNull
+    @Column(name = "expiresAt")
+    private Instant expiresAt;
+
+    // Constructors
+    public SeatHold() {
+    }
+
+    public SeatHold(String id, Long commodityId, Integer seats, Instant expiresAt) {
+        this.id = id;
+        this.commodityId = commodityId;
+        this.seats = seats;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getCommodityId() {
+        return commodityId;
+    }
+
+    public void setCommodityId(Long commodityId) {
+        this.commodityId = commodityId;
+    }
+
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public void setSeats(Integer seats) {
+        this.seats = seats;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SeatHold seatHold = (SeatHold) o;
+        return Objects.equals(id, seatHold.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "SeatHold{" +
+                "id='" + id + '\'' +
+                ", commodityId=" + commodityId +
+                ", seats=" + seats +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
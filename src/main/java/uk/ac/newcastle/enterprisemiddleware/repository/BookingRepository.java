@@ -2,9 +2,21 @@ package uk.ac.newcastle.enterprisemiddleware.repository;
 
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
 import uk.ac.newcastle.enterprisemiddleware.entity.Booking;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.BookingView;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repository for Booking entity operations.
@@ -12,6 +24,50 @@ import java.util.List;
 @ApplicationScoped
 public class BookingRepository implements PanacheRepository<Booking> {
 
+    private static final String SELECT_VIEW = "select new " + BookingView.class.getName() +
+            "(b.id, b.bookingDate, b.customer.id, b.commodity.id, b.seats) from Booking b ";
+
+    /**
+     * Find a booking as a projection of its own columns, without loading the customer or commodity.
+     *
+     * @param id the booking ID
+     * @return Optional containing the booking if found
+     */
+    public Optional<BookingView> findViewById(Long id) {
+        return getEntityManager().createQuery(SELECT_VIEW + "where b.id = ?1", BookingView.class)
+                .setParameter(1, id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * Find a page of bookings as projections in id order, starting after the given id.
+     *
+     * @param after the last id of the previous page, or null for the first page
+     * @param limit the maximum number of bookings to return
+     * @return list of bookings
+     */
+    public List<BookingView> findViewPage(Long after, int limit) {
+        return getEntityManager()
+                .createQuery(SELECT_VIEW + "where b.id > ?1 order by b.id", BookingView.class)
+                .setParameter(1, after != null ? after : Long.MIN_VALUE)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Find all bookings for a specific customer as projections.
+     *
+     * @param customerId the customer ID
+     * @return list of bookings
+     */
+    public List<BookingView> findViewsByCustomerId(Long customerId) {
+        return getEntityManager()
+                .createQuery(SELECT_VIEW + "where b.customer.id = ?1 order by b.id", BookingView.class)
+                .setParameter(1, customerId)
+                .getResultList();
+    }
+
     /**
      * Find all bookings for a specific customer.
      *
@@ -33,14 +89,107 @@ public class BookingRepository implements PanacheRepository<Booking> {
     }
 
     /**
-     * Check if a booking exists for a customer and commodity.
+     * Sum the booked seats of one customer per commodity.
+     *
+     * @param customerId the customer ID
+     * @return map of commodity ID to the seats the customer has booked on it
+     */
+    public Map<Long, Long> sumSeatsByCommodityForCustomer(Long customerId) {
+        Map<Long, Long> seats = new HashMap<>();
+        getEntityManager()
+                .createQuery("select b.commodity.id, sum(b.seats) from Booking b where b.customer.id = ?1 " +
+                        "group by b.commodity.id", Object[].class)
+                .setParameter(1, customerId)
+                .getResultStream()
+                .forEach(row -> seats.put((Long) row[0], (Long) row[1]));
+        return seats;
+    }
+
+    /**
+     * Delete all bookings of a customer with a single statement.
+     *
+     * @param customerId the customer ID
+     * @return number of bookings deleted
+     */
+    public long deleteByCustomerId(Long customerId) {
+        return delete("customer.id", customerId);
+    }
+
+    /**
+     * Delete all bookings of a commodity with a single statement.
      *
-     * @param customerId  the customer ID
      * @param commodityId the commodity ID
-     * @return true if booking exists
+     * @return number of bookings deleted
      */
-    public boolean existsByCustomerAndCommodity(Long customerId, Long commodityId) {
-        return count("customer.id = ?1 and commodity.id = ?2", customerId, commodityId) > 0;
+    public long deleteByCommodityId(Long commodityId) {
+        return delete("commodity.id", commodityId);
+    }
+
+    /**
+     * Open a forward-only cursor over the export columns of every booking, in id order.
+     * Only scalar columns are selected, so no entities are loaded into the persistence context
+     * and the customer and commodity graphs are never fetched.
+     *
+     * @param fetchSize the number of rows the JDBC driver fetches per round trip
+     * @return rows of id, bookingDate, customer ID, commodity ID, seats and commodity price; must be closed
+     */
+    public ScrollableResults<Object[]> scrollExportRows(int fetchSize) {
+        return getEntityManager().unwrap(Session.class)
+                .createSelectionQuery("select b.id, b.bookingDate, b.customer.id, b.commodity.id, b.seats, c.price " +
+                        "from Booking b join b.commodity c order by b.id", Object[].class)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    /**
+     * Check whether a persistence failure was caused by a second booking of the same commodity
+     * by the same customer.
+     *
+     * @param e the exception thrown by flush
+     * @return true if the customer and commodity unique constraint was violated
+     */
+    public static boolean isDuplicateBooking(PersistenceException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                return name != null && name.toLowerCase().contains(Booking.CUSTOMER_COMMODITY_CONSTRAINT);
+            }
+        }
+        return false;
     }
-}
 
+    /**
+     * Find which of the given customer and commodity combinations already have a booking,
+     * in a single query.
+     *
+     * @param customerIds  the customer IDs
+     * @param commodityIds the commodity IDs
+     * @return set of existing (customer ID, commodity ID) pairs
+     */
+    public Set<List<Long>> findExistingPairs(Collection<Long> customerIds, Collection<Long> commodityIds) {
+        Set<List<Long>> pairs = new HashSet<>();
+        getEntityManager()
+                .createQuery("select b.customer.id, b.commodity.id from Booking b " +
+                        "where b.customer.id in ?1 and b.commodity.id in ?2", Object[].class)
+                .setParameter(1, customerIds)
+                .setParameter(2, commodityIds)
+                .getResultStream()
+                .forEach(row -> pairs.add(List.of((Long) row[0], (Long) row[1])));
+        return pairs;
+    }
+
+    /**
+     * Count booked seats for every commodity that has at least one booking.
+     *
+     * @return map of commodity ID to number of booked seats
+     */
+    public Map<Long, Long> countBookedSeatsByCommodity() {
+        Map<Long, Long> counts = new HashMap<>();
+        getEntityManager()
+                .createQuery("select b.commodity.id, sum(b.seats) from Booking b group by b.commodity.id", Object[].class)
+                .getResultStream()
+                .forEach(row -> counts.put((Long) row[0], (Long) row[1]));
+        return counts;
+    }
+}
@@ -1,9 +1,13 @@
 package uk.ac.newcastle.enterprisemiddleware.repository;
 
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.jpa.HibernateHints;
 import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,12 +17,29 @@ import java.util.List;
 public class CommodityRepository implements PanacheRepository<Commodity> {
 
     /**
-     * Find all commodities with available quantity greater than zero.
+     * Find a page of commodities in id order, starting after the given id.
      *
+     * @param after the last id of the previous page, or null for the first page
+     * @param limit the maximum number of commodities to return
+     * @return list of commodities
+     */
+    public List<Commodity> findPage(Long after, int limit) {
+        PanacheQuery<Commodity> query = after == null ? findAll(Sort.by("id")) : find("id > ?1", Sort.by("id"), after);
+        return query.page(0, limit).list();
+    }
+
+    /**
+     * Find a page of commodities with available quantity greater than zero, in id order.
+     * Results are kept in the query cache until the Commodity table next changes.
+     *
+     * @param after the last id of the previous page, or null for the first page
+     * @param limit the maximum number of commodities to return
      * @return list of available commodities
      */
-    public List<Commodity> findAvailableCommodities() {
-        return list("quantity > 0");
+    public List<Commodity> findAvailableCommodities(Long after, int limit) {
+        PanacheQuery<Commodity> query = after == null ? find("quantity > 0", Sort.by("id"))
+                : find("quantity > 0 and id > ?1", Sort.by("id"), after);
+        return query.page(0, limit).withHint(HibernateHints.HINT_CACHEABLE, true).list();
     }
 
     /**
@@ -30,5 +51,79 @@ public class CommodityRepository implements PanacheRepository<Commodity> {
     public List<Commodity> findByName(String name) {
         return list("LOWER(name) LIKE LOWER(?1)", "%" + name + "%");
     }
-}
 
+    /**
+     * Find all commodities with the given IDs in a single query.
+     *
+     * @param ids the commodity IDs
+     * @return list of commodities found
+     */
+    public List<Commodity> findByIds(Collection<Long> ids) {
+        return list("id in ?1", ids);
+    }
+
+    /**
+     * Read the current quantity of a commodity from the database, bypassing any loaded entity.
+     *
+     * @param id the commodity ID
+     * @return the quantity, or null if the commodity does not exist
+     */
+    public Integer findQuantity(Long id) {
+        return getEntityManager()
+                .createQuery("select c.quantity from Commodity c where c.id = ?1", Integer.class)
+                .setParameter(1, id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Atomically decrease the quantity of a commodity, but only if enough stock remains.
+     * The check and the write happen in a single UPDATE statement, so concurrent bookings
+     * cannot oversell the commodity.
+     *
+     * @param id    the commodity ID
+     * @param seats the number of seats to take
+     * @return true if the seats were taken, false if not enough remain or the commodity does not exist
+     */
+    public boolean decrementQuantity(Long id, int seats) {
+        return update("quantity = quantity - ?1 where id = ?2 and quantity >= ?1", seats, id) > 0;
+    }
+
+    /**
+     * Atomically increase the quantity of a commodity.
+     *
+     * @param id    the commodity ID
+     * @param seats the number of seats to return
+     * @return true if the commodity exists and was updated
+     */
+    public boolean incrementQuantity(Long id, int seats) {
+        return update("quantity = quantity + ?1 where id = ?2", seats, id) > 0;
+    }
+
+    /**
+     * Atomically apply a net change to the quantity of a commodity.
+     *
+     * @param id    the commodity ID
+     * @param delta the change to apply (negative to take seats)
+     * @return true if the commodity exists and was updated
+     */
+    public boolean adjustQuantity(Long id, int delta) {
+        return update("quantity = quantity + ?1 where id = ?2", delta, id) > 0;
+    }
+
+    /**
+     * Give back every seat a customer has booked, with one update across all of their commodities.
+     *
+     * @param customerId the customer ID
+     * @return number of commodities updated
+     */
+    public int restoreSeatsOfCustomer(Long customerId) {
+        return getEntityManager()
+                .createQuery("update Commodity c set c.quantity = c.quantity + " +
+                        "(select sum(b.seats) from Booking b where b.commodity = c and b.customer.id = ?1) " +
+                        "where c.id in (select b.commodity.id from Booking b where b.customer.id = ?1)")
+                .setParameter(1, customerId)
+                .executeUpdate();
+    }
+}
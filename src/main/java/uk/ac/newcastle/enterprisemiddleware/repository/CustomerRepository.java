@@ -1,9 +1,13 @@
 package uk.ac.newcastle.enterprisemiddleware.repository;
 
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import uk.ac.newcastle.enterprisemiddleware.entity.Customer;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -12,6 +16,18 @@ import java.util.Optional;
 @ApplicationScoped
 public class CustomerRepository implements PanacheRepository<Customer> {
 
+    /**
+     * Find a page of customers in id order, starting after the given id.
+     *
+     * @param after the last id of the previous page, or null for the first page
+     * @param limit the maximum number of customers to return
+     * @return list of customers
+     */
+    public List<Customer> findPage(Long after, int limit) {
+        PanacheQuery<Customer> query = after == null ? findAll(Sort.by("id")) : find("id > ?1", Sort.by("id"), after);
+        return query.page(0, limit).list();
+    }
+
     /**
      * Find a customer by email address.
      *
@@ -31,5 +47,14 @@ public class CustomerRepository implements PanacheRepository<Customer> {
     public boolean existsByEmail(String email) {
         return count("email", email) > 0;
     }
-}
 
+    /**
+     * Find all customers with the given IDs in a single query.
+     *
+     * @param ids the customer IDs
+     * @return list of customers found
+     */
+    public List<Customer> findByIds(Collection<Long> ids) {
+        return list("id in ?1", ids);
+    }
+}
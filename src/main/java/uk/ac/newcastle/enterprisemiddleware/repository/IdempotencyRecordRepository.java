@@ -0,0 +1,48 @@
+package uk.ac.newcastle.enterprisemiddleware.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import uk.ac.newcastle.enterprisemiddleware.entity.IdempotencyRecord;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Repository for IdempotencyRecord entity operations.
+ */
+@ApplicationScoped
+public class IdempotencyRecordRepository implements PanacheRepositoryBase<IdempotencyRecord, String> {
+
+    /**
+     * Find a stored response that was created after the given time.
+     *
+     * @param id    the scoped idempotency key
+     * @param after records created at or before this time are treated as expired
+     * @return Optional containing the record if found and not expired
+     */
+    public Optional<IdempotencyRecord> findUnexpired(String id, Instant after) {
+        return find("id = ?1 and createdAt > ?2", id, after).firstResultOptional();
+    }
+
+    /**
+     * Store a record in the caller's transaction, so it commits or rolls back with the work it
+     * records. An expired record with the same key may not have been purged yet, so it is merged.
+     *
+     * @param record the record
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void store(IdempotencyRecord record) {
+        getEntityManager().merge(record);
+    }
+
+    /**
+     * Delete all records created before the given time.
+     *
+     * @param before the expiry cut-off
+     * @return number of records deleted
+     */
+    public long deleteExpired(Instant before) {
+        return delete("createdAt <= ?1", before);
+    }
+}
@@ -0,0 +1,22 @@
+package uk.ac.newcastle.enterprisemiddleware.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import uk.ac.newcastle.enterprisemiddleware.entity.InventoryCheckpoint;
+
+/**
+ * Repository for InventoryCheckpoint entity operations.
+ */
+@ApplicationScoped
+public class InventoryCheckpointRepository implements PanacheRepositoryBase<InventoryCheckpoint, Long> {
+
+    /**
+     * Record that a net change in booked seats has been written to the commodity quantity.
+     *
+     * @param commodityId the commodity ID
+     * @param seats       the change in booked seats (negative when seats were returned)
+     */
+    public void addBookedSeats(Long commodityId, long seats) {
+        update("bookedSeats = bookedSeats + ?1 where commodityId = ?2", seats, commodityId);
+    }
+}
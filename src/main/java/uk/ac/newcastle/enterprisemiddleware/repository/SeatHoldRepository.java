@@ -0,0 +1,64 @@
+package uk.ac.newcastle.enterprisemiddleware.repository;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import uk.ac.newcastle.enterprisemiddleware.entity.SeatHold;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Repository for SeatHold entity operations.
+ */
+@ApplicationScoped
+public class SeatHoldRepository implements PanacheRepositoryBase<SeatHold, String> {
+
+    /**
+     * Atomically take seats out of an unexpired hold on the given commodity.
+     *
+     * @param id          the hold ID
+     * @param commodityId the commodity the hold must belong to
+     * @param seats       the number of seats to redeem
+     * @param now         the current time
+     * @return true if the seats were redeemed
+     */
+    public boolean redeemSeats(String id, Long commodityId, int seats, Instant now) {
+        return update("seats = seats - ?1 where id = ?2 and commodityId = ?3 and seats >= ?1 and expiresAt > ?4",
+                seats, id, commodityId, now) > 0;
+    }
+
+    /**
+     * Delete a hold whose seats have all been redeemed.
+     *
+     * @param id the hold ID
+     * @return true if the hold was empty and has been deleted
+     */
+    public boolean deleteIfRedeemed(String id) {
+        return delete("id = ?1 and seats = 0", id) > 0;
+    }
+
+    /**
+     * Sum the seats still held for every commodity that has outstanding holds.
+     *
+     * @return map of commodity ID to number of held seats
+     */
+    public Map<Long, Long> sumHeldSeatsByCommodity() {
+        Map<Long, Long> sums = new HashMap<>();
+        getEntityManager()
+                .createQuery("select h.commodityId, sum(h.seats) from SeatHold h group by h.commodityId", Object[].class)
+                .getResultStream()
+                .forEach(row -> sums.put((Long) row[0], (Long) row[1]));
+        return sums;
+    }
+
+    /**
+     * Delete all holds on a commodity.
+     *
+     * @param commodityId the commodity ID
+     * @return number of holds deleted
+     */
+    public long deleteByCommodityId(Long commodityId) {
+        return delete("commodityId", commodityId);
+    }
+}
@@ -1,9 +1,13 @@
 package uk.ac.newcastle.enterprisemiddleware.rest;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -11,9 +15,17 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import uk.ac.newcastle.enterprisemiddleware.entity.Booking;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.BatchBookingItem;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.BatchBookingResponse;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.BookingView;
 import uk.ac.newcastle.enterprisemiddleware.service.BookingService;
+import uk.ac.newcastle.enterprisemiddleware.service.IdempotencyService;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.logging.Logger;
 
 /**
@@ -23,44 +35,100 @@ import java.util.logging.Logger;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Booking", description = "Booking management operations")
+@RunOnVirtualThread
 public class BookingResource {
 
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     @Inject
     Logger log;
 
     @Inject
     BookingService bookingService;
 
+    @Inject
+    IdempotencyService idempotencyService;
+
+    @Inject
+    Pagination pagination;
+
     /**
-     * Get all bookings.
+     * Get a page of bookings.
      *
-     * @return list of all bookings
+     * @param after   the last ID of the previous page, or null for the first page
+     * @param limit   the page size, or null for the default
+     * @param expand  comma-separated relations to include in full
+     * @param uriInfo the request URI
+     * @return list of bookings
      */
     @GET
-    @Operation(summary = "Get all bookings", description = "Returns a list of all bookings")
+    @Operation(summary = "Get all bookings",
+               description = "Returns a page of bookings in ID order; the next page cursor is in the X-Next-Cursor and Link headers")
     @APIResponse(responseCode = "200", description = "Successful retrieval of bookings",
-            content = @Content(schema = @Schema(implementation = Booking.class)))
-    public Response getAllBookings() {
-        log.info("GET /bookings - Getting all bookings");
-        List<Booking> bookings = bookingService.findAllBookings();
-        return Response.ok(bookings).build();
+            content = @Content(schema = @Schema(implementation = BookingView.class)))
+    @APIResponse(responseCode = "400", description = "Invalid page size or expand value")
+    public Response getAllBookings(
+            @Parameter(description = "Return bookings after this ID (the X-Next-Cursor of the previous page)")
+            @QueryParam("after") Long after,
+            @Parameter(description = "Maximum number of bookings to return")
+            @QueryParam("limit") Integer limit,
+            @Parameter(description = "Comma-separated relations to include in full: customer, commodity")
+            @QueryParam("expand") String expand,
+            @Context UriInfo uriInfo) {
+        log.info("GET /bookings - Getting bookings after " + after);
+        int pageSize = pagination.limit(limit);
+        return pagination.response(bookingService.findBookings(after, pageSize, parseExpand(expand)), pageSize, uriInfo);
+    }
+
+    /**
+     * Export all bookings as flat rows, streamed without loading them into memory.
+     *
+     * @param format ndjson (the default), csv or columnar
+     * @return the booking, customer and commodity IDs, date and seats of every booking, plus the
+     *         commodity price in the csv and columnar formats
+     */
+    @GET
+    @Path("/export")
+    @Produces({APPLICATION_NDJSON, CommodityResource.TEXT_CSV, MediaType.APPLICATION_OCTET_STREAM})
+    @Operation(summary = "Export all bookings",
+               description = "Streams every booking in ID order as newline-delimited JSON, CSV with a header row, " +
+                             "or the dictionary-encoded columnar format described in ColumnarWriter, for reconciliation and analytics")
+    @APIResponse(responseCode = "200", description = "Bookings streamed")
+    @APIResponse(responseCode = "400", description = "Unknown format")
+    public Response exportBookings(
+            @Parameter(description = "Output format: ndjson, csv or columnar")
+            @QueryParam("format") @DefaultValue("ndjson") String format) {
+        log.info("GET /bookings/export - Exporting all bookings as " + format);
+        BookingService.ExportFormat exportFormat = parseExportFormat(format);
+        StreamingOutput stream = output -> bookingService.exportBookings(output, exportFormat);
+        String mediaType = switch (exportFormat) {
+            case NDJSON -> APPLICATION_NDJSON;
+            case CSV -> CommodityResource.TEXT_CSV;
+            case COLUMNAR -> MediaType.APPLICATION_OCTET_STREAM;
+        };
+        return Response.ok(stream, mediaType).build();
     }
 
     /**
      * Get a booking by ID.
      *
-     * @param id the booking ID
+     * @param id     the booking ID
+     * @param expand comma-separated relations to include in full
      * @return the booking
      */
     @GET
     @Path("/{id}")
     @Operation(summary = "Get booking by ID", description = "Returns a single booking by ID")
     @APIResponse(responseCode = "200", description = "Booking found",
-            content = @Content(schema = @Schema(implementation = Booking.class)))
+            content = @Content(schema = @Schema(implementation = BookingView.class)))
+    @APIResponse(responseCode = "400", description = "Invalid expand value")
     @APIResponse(responseCode = "404", description = "Booking not found")
-    public Response getBookingById(@PathParam("id") Long id) {
+    public Response getBookingById(
+            @PathParam("id") Long id,
+            @Parameter(description = "Comma-separated relations to include in full: customer, commodity")
+            @QueryParam("expand") String expand) {
         log.info("GET /bookings/" + id + " - Getting booking by id");
-        Booking booking = bookingService.findBookingById(id);
+        BookingView booking = bookingService.findBookingView(id, parseExpand(expand));
         return Response.ok(booking).build();
     }
 
@@ -68,38 +136,54 @@ public class BookingResource {
      * Get all bookings for a specific customer.
      *
      * @param customerId the customer ID
+     * @param expand     comma-separated relations to include in full
      * @return list of bookings
      */
     @GET
     @Path("/customer/{customerId}")
     @Operation(summary = "Get bookings by customer", description = "Returns all bookings for a specific customer")
     @APIResponse(responseCode = "200", description = "Successful retrieval of customer bookings",
-            content = @Content(schema = @Schema(implementation = Booking.class)))
-    public Response getBookingsByCustomerId(@PathParam("customerId") Long customerId) {
+            content = @Content(schema = @Schema(implementation = BookingView.class)))
+    @APIResponse(responseCode = "400", description = "Invalid expand value")
+    public Response getBookingsByCustomerId(
+            @PathParam("customerId") Long customerId,
+            @Parameter(description = "Comma-separated relations to include in full: customer, commodity")
+            @QueryParam("expand") String expand) {
         log.info("GET /bookings/customer/" + customerId + " - Getting bookings for customer");
-        List<Booking> bookings = bookingService.findBookingsByCustomerId(customerId);
+        List<BookingView> bookings = bookingService.findBookingsByCustomerId(customerId, parseExpand(expand));
         return Response.ok(bookings).build();
     }
 
     /**
      * Create a new booking.
      *
-     * @param customerId  the customer ID
-     * @param commodityId the commodity ID
+     * @param customerId     the customer ID
+     * @param commodityId    the commodity ID
+     * @param seats          the number of seats to book
+     * @param holdId        the seat hold to redeem, if any
+     * @param idempotencyKey client-chosen key that makes retries of the request safe, if any
      * @return the created booking
      */
     @POST
-    @Operation(summary = "Create a new booking", description = "Creates a new booking for a customer and commodity")
+    @Operation(summary = "Create a new booking", description = "Creates a new booking of one or more seats for a customer and commodity")
     @APIResponse(responseCode = "201", description = "Booking created successfully",
             content = @Content(schema = @Schema(implementation = Booking.class)))
     @APIResponse(responseCode = "400", description = "Invalid booking data or commodity out of stock")
-    @APIResponse(responseCode = "404", description = "Customer or commodity not found")
+    @APIResponse(responseCode = "404", description = "Customer, commodity or seat hold not found")
     @APIResponse(responseCode = "409", description = "Booking already exists")
+    @APIResponse(responseCode = "410", description = "Seat hold expired")
+    @APIResponse(responseCode = "422", description = "Idempotency key already used for a different request")
     public Response createBooking(
             @Parameter(description = "Customer ID", required = true)
             @QueryParam("customerId") Long customerId,
             @Parameter(description = "Commodity ID", required = true)
-            @QueryParam("commodityId") Long commodityId) {
+            @QueryParam("commodityId") Long commodityId,
+            @Parameter(description = "Number of seats to book")
+            @QueryParam("seats") @DefaultValue("1") int seats,
+            @Parameter(description = "Seat hold ID to redeem instead of taking new seats")
+            @QueryParam("holdId") String holdId,
+            @Parameter(description = "Key that makes retries safe; a repeated key returns the original response")
+            @HeaderParam(IdempotencyService.HEADER) String idempotencyKey) {
         
         log.info("POST /bookings - Creating new booking for customer " + customerId + " and commodity " + commodityId);
         
@@ -109,8 +193,31 @@ public class BookingResource {
                     .build();
         }
         
-        Booking created = bookingService.createBooking(customerId, commodityId);
-        return Response.status(Response.Status.CREATED).entity(created).build();
+        // The booking joins the transaction that stores the response, so a committed booking is always replayed
+        return idempotencyService.executeInTransaction("POST /bookings", idempotencyKey,
+                Arrays.asList(customerId, commodityId, seats, holdId), () -> {
+                    Booking created = bookingService.createBooking(customerId, commodityId, seats, holdId);
+                    return Response.status(Response.Status.CREATED).entity(created).build();
+                });
+    }
+
+    /**
+     * Create many bookings in a single transaction.
+     *
+     * @param items the customer and commodity of each booking
+     * @return per-item success or failure, in request order
+     */
+    @POST
+    @Path("/batch")
+    @Operation(summary = "Create bookings in batch",
+               description = "Creates many bookings in one transaction and reports success or failure for each item")
+    @APIResponse(responseCode = "200", description = "Batch processed; see per-item results",
+            content = @Content(schema = @Schema(implementation = BatchBookingResponse.class)))
+    @APIResponse(responseCode = "400", description = "Batch is empty or too large")
+    public Response createBookings(List<BatchBookingItem> items) {
+        log.info("POST /bookings/batch - Creating " + (items != null ? items.size() : 0) + " bookings");
+        BatchBookingResponse response = bookingService.createBookings(items);
+        return Response.ok(response).build();
     }
 
     /**
@@ -129,5 +236,43 @@ public class BookingResource {
         bookingService.cancelBooking(id);
         return Response.noContent().build();
     }
-}
 
+    /**
+     * Parse the expand query parameter.
+     *
+     * @param expand comma-separated relation names, or null
+     * @return the relations to expand
+     * @throws WebApplicationException if a relation cannot be expanded
+     */
+    private static Set<String> parseExpand(String expand) {
+        Set<String> relations = new LinkedHashSet<>();
+        if (expand == null || expand.isBlank()) {
+            return relations;
+        }
+        for (String relation : expand.split(",")) {
+            String name = relation.trim();
+            if (!BookingView.EXPANDABLE.contains(name)) {
+                throw new WebApplicationException("Cannot expand '" + name + "'; expected one of " + BookingView.EXPANDABLE,
+                        Response.Status.BAD_REQUEST);
+            }
+            relations.add(name);
+        }
+        return relations;
+    }
+
+    /**
+     * Parse the export format query parameter.
+     *
+     * @param format the format name, in any case
+     * @return the export format
+     * @throws WebApplicationException if the format is unknown
+     */
+    private static BookingService.ExportFormat parseExportFormat(String format) {
+        try {
+            return BookingService.ExportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException("Unknown export format '" + format + "'; expected ndjson, csv or columnar",
+                    Response.Status.BAD_REQUEST);
+        }
+    }
+}
@@ -1,19 +1,36 @@
 package uk.ac.newcastle.enterprisemiddleware.rest;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.entity.SeatHold;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.CommodityImportResponse;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.SeatHoldRequest;
+import uk.ac.newcastle.enterprisemiddleware.service.CatalogSnapshot;
+import uk.ac.newcastle.enterprisemiddleware.service.CommodityImporter;
 import uk.ac.newcastle.enterprisemiddleware.service.CommodityService;
+import uk.ac.newcastle.enterprisemiddleware.service.SeatHoldService;
+import uk.ac.newcastle.enterprisemiddleware.util.KeysetPage;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
@@ -23,42 +40,114 @@ import java.util.logging.Logger;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Commodity", description = "Commodity (Flight) management operations")
+@RunOnVirtualThread
 public class CommodityResource {
 
+    public static final String TEXT_CSV = "text/csv";
+
     @Inject
     Logger log;
 
     @Inject
     CommodityService commodityService;
 
+    @Inject
+    SeatHoldService seatHoldService;
+
+    @Inject
+    Pagination pagination;
+
+    @Inject
+    CatalogSnapshot catalogSnapshot;
+
+    @Inject
+    CommodityImporter commodityImporter;
+
     /**
-     * Get all commodities.
+     * Get a page of commodities.
      *
-     * @return list of all commodities
+     * @param after   the last ID of the previous page, or null for the first page
+     * @param limit   the page size, or null for the default
+     * @param uriInfo the request URI
+     * @param request the request, for If-None-Match
+     * @return list of commodities
      */
     @GET
-    @Operation(summary = "Get all commodities", description = "Returns a list of all commodities (flights)")
+    @Operation(summary = "Get all commodities",
+               description = "Returns a page of commodities (flights) in ID order; the next page cursor is in the X-Next-Cursor and Link headers. " +
+                             "The ETag changes whenever the content of the page changes")
     @APIResponse(responseCode = "200", description = "Successful retrieval of commodities",
             content = @Content(schema = @Schema(implementation = Commodity.class)))
-    public Response getAllCommodities() {
-        log.info("GET /commodities - Getting all commodities");
-        List<Commodity> commodities = commodityService.findAllCommodities();
-        return Response.ok(commodities).build();
+    @APIResponse(responseCode = "304", description = "The page is unchanged since the ETag in If-None-Match")
+    @APIResponse(responseCode = "400", description = "Invalid page size")
+    public Response getAllCommodities(
+            @Parameter(description = "Return commodities after this ID (the X-Next-Cursor of the previous page)")
+            @QueryParam("after") Long after,
+            @Parameter(description = "Maximum number of commodities to return")
+            @QueryParam("limit") Integer limit,
+            @Context UriInfo uriInfo,
+            @Context Request request) {
+        log.info("GET /commodities - Getting commodities after " + after);
+        int pageSize = pagination.limit(limit);
+        return snapshotResponse("all:" + after + ":" + pageSize, pageSize, uriInfo, request,
+                () -> commodityService.findCommodities(after, pageSize));
     }
 
     /**
-     * Get available commodities only.
+     * Get a page of available commodities only.
      *
+     * @param after   the last ID of the previous page, or null for the first page
+     * @param limit   the page size, or null for the default
+     * @param uriInfo the request URI
+     * @param request the request, for If-None-Match
      * @return list of available commodities
      */
     @GET
     @Path("/available")
-    @Operation(summary = "Get available commodities", description = "Returns only commodities with quantity > 0")
+    @Operation(summary = "Get available commodities",
+               description = "Returns a page of commodities with quantity > 0 in ID order; the next page cursor is in the X-Next-Cursor and Link headers. " +
+                             "The ETag changes whenever the content of the page changes")
     @APIResponse(responseCode = "200", description = "Successful retrieval of available commodities",
             content = @Content(schema = @Schema(implementation = Commodity.class)))
-    public Response getAvailableCommodities() {
-        log.info("GET /commodities/available - Getting available commodities");
-        List<Commodity> commodities = commodityService.findAvailableCommodities();
+    @APIResponse(responseCode = "304", description = "The page is unchanged since the ETag in If-None-Match")
+    @APIResponse(responseCode = "400", description = "Invalid page size")
+    public Response getAvailableCommodities(
+            @Parameter(description = "Return commodities after this ID (the X-Next-Cursor of the previous page)")
+            @QueryParam("after") Long after,
+            @Parameter(description = "Maximum number of commodities to return")
+            @QueryParam("limit") Integer limit,
+            @Context UriInfo uriInfo,
+            @Context Request request) {
+        log.info("GET /commodities/available - Getting available commodities after " + after);
+        int pageSize = pagination.limit(limit);
+        return snapshotResponse("available:" + after + ":" + pageSize, pageSize, uriInfo, request,
+                () -> commodityService.findAvailableCommodities(after, pageSize));
+    }
+
+    /**
+     * Search commodities by name and description.
+     *
+     * @param q     the search text
+     * @param limit the maximum number of results, or null for the default
+     * @return matching commodities, best match first
+     */
+    @GET
+    @Path("/search")
+    @Operation(summary = "Search commodities",
+               description = "Returns commodities whose name or description matches the query, tolerating typos; name matches rank first")
+    @APIResponse(responseCode = "200", description = "Matching commodities, best match first",
+            content = @Content(schema = @Schema(implementation = Commodity.class)))
+    @APIResponse(responseCode = "400", description = "Missing query or invalid limit")
+    public Response searchCommodities(
+            @Parameter(description = "Search text", required = true)
+            @QueryParam("q") String q,
+            @Parameter(description = "Maximum number of commodities to return")
+            @QueryParam("limit") Integer limit) {
+        log.info("GET /commodities/search - Searching commodities for " + q);
+        if (q == null || q.isBlank()) {
+            throw new WebApplicationException("q is required", Response.Status.BAD_REQUEST);
+        }
+        List<Commodity> commodities = commodityService.searchCommodities(q, pagination.limit(limit));
         return Response.ok(commodities).build();
     }
 
@@ -76,7 +165,7 @@ public class CommodityResource {
     @APIResponse(responseCode = "404", description = "Commodity not found")
     public Response getCommodityById(@PathParam("id") Long id) {
         log.info("GET /commodities/" + id + " - Getting commodity by id");
-        Commodity commodity = commodityService.findCommodityById(id);
+        Commodity commodity = commodityService.findCommodityByIdCached(id);
         return Response.ok(commodity).build();
     }
 
@@ -97,6 +186,30 @@ public class CommodityResource {
         return Response.status(Response.Status.CREATED).entity(created).build();
     }
 
+    /**
+     * Import many commodities from a streamed CSV or NDJSON body.
+     *
+     * @param headers the request headers, for the content type
+     * @param body    the CSV (with a header row) or NDJSON rows
+     * @return the number of commodities imported and the rows that failed
+     */
+    @POST
+    @Path("/import")
+    @Consumes({TEXT_CSV, BookingResource.APPLICATION_NDJSON})
+    @Operation(summary = "Import commodities",
+               description = "Creates commodities from CSV (columns name, description, price, quantity) or NDJSON, " +
+                             "in batched transactions; invalid rows are reported and skipped")
+    @APIResponse(responseCode = "200", description = "Import processed; see per-row errors",
+            content = @Content(schema = @Schema(implementation = CommodityImportResponse.class)))
+    @APIResponse(responseCode = "400", description = "CSV header missing a column")
+    public Response importCommodities(@Context HttpHeaders headers, InputStream body) {
+        log.info("POST /commodities/import - Importing commodities as " + headers.getMediaType());
+        CommodityImportResponse response = MediaType.valueOf(TEXT_CSV).isCompatible(headers.getMediaType())
+                ? commodityImporter.importCsv(body)
+                : commodityImporter.importNdjson(body);
+        return Response.ok(response).build();
+    }
+
     /**
      * Update an existing commodity.
      *
@@ -133,5 +246,68 @@ public class CommodityResource {
         commodityService.deleteCommodity(id);
         return Response.noContent().build();
     }
-}
 
+    /**
+     * Hold seats on a commodity for a limited time.
+     *
+     * @param id      the commodity ID
+     * @param request the number of seats to hold
+     * @return the created hold, whose ID can be redeemed when creating a booking
+     */
+    @POST
+    @Path("/{id}/holds")
+    @Operation(summary = "Hold seats", description = "Reserves seats on a commodity until the hold expires or is redeemed by a booking")
+    @APIResponse(responseCode = "201", description = "Seats held successfully",
+            content = @Content(schema = @Schema(implementation = SeatHold.class)))
+    @APIResponse(responseCode = "400", description = "Invalid seat count or commodity out of stock")
+    @APIResponse(responseCode = "404", description = "Commodity not found")
+    public Response placeHold(@PathParam("id") Long id, @Valid SeatHoldRequest request) {
+        log.info("POST /commodities/" + id + "/holds - Holding seats");
+        SeatHold hold = seatHoldService.placeHold(id, request.getSeats());
+        return Response.status(Response.Status.CREATED).entity(hold).build();
+    }
+
+    /**
+     * Release a seat hold before it expires.
+     *
+     * @param id     the commodity ID
+     * @param holdId the hold ID
+     * @return no content response
+     */
+    @DELETE
+    @Path("/{id}/holds/{holdId}")
+    @Operation(summary = "Release a seat hold", description = "Releases a hold and returns its remaining seats to available stock")
+    @APIResponse(responseCode = "204", description = "Seat hold released successfully")
+    @APIResponse(responseCode = "404", description = "Seat hold not found")
+    public Response releaseHold(@PathParam("id") Long id, @PathParam("holdId") String holdId) {
+        log.info("DELETE /commodities/" + id + "/holds/" + holdId + " - Releasing seat hold");
+        seatHoldService.releaseHold(holdId, id);
+        return Response.noContent().build();
+    }
+
+    /**
+     * Serve a catalog page from the snapshot, or 304 if the client's ETag still matches its content.
+     *
+     * @param key      identifies the page in the snapshot
+     * @param pageSize the page size used
+     * @param uriInfo  the request URI
+     * @param request  the request, for If-None-Match
+     * @param loader   reads the page if the snapshot is out of date
+     * @return the page or a 304 response
+     */
+    private Response snapshotResponse(String key, int pageSize, UriInfo uriInfo, Request request,
+                                      Supplier<KeysetPage<?>> loader) {
+        CacheControl revalidate = new CacheControl();
+        revalidate.setNoCache(true);
+        CatalogSnapshot.Page page = catalogSnapshot.page(key, loader);
+        EntityTag tag = new EntityTag(page.getTag());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.cacheControl(revalidate).build();
+        }
+        Response.ResponseBuilder response = Response.ok(page.getBody(), MediaType.APPLICATION_JSON_TYPE)
+                .tag(tag)
+                .cacheControl(revalidate);
+        return pagination.response(response, page.getNext(), pageSize, uriInfo);
+    }
+}
@@ -1,19 +1,26 @@
 package uk.ac.newcastle.enterprisemiddleware.rest;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import uk.ac.newcastle.enterprisemiddleware.entity.Customer;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.CustomerImportResponse;
+import uk.ac.newcastle.enterprisemiddleware.service.CustomerImporter;
 import uk.ac.newcastle.enterprisemiddleware.service.CustomerService;
 
-import java.util.List;
+import java.io.InputStream;
 import java.util.logging.Logger;
 
 /**
@@ -23,6 +30,7 @@ import java.util.logging.Logger;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "Customer", description = "Customer management operations")
+@RunOnVirtualThread
 public class CustomerResource {
 
     @Inject
@@ -31,19 +39,35 @@ public class CustomerResource {
     @Inject
     CustomerService customerService;
 
+    @Inject
+    Pagination pagination;
+
+    @Inject
+    CustomerImporter customerImporter;
+
     /**
-     * Get all customers.
+     * Get a page of customers.
      *
-     * @return list of all customers
+     * @param after   the last ID of the previous page, or null for the first page
+     * @param limit   the page size, or null for the default
+     * @param uriInfo the request URI
+     * @return list of customers
      */
     @GET
-    @Operation(summary = "Get all customers", description = "Returns a list of all customers")
+    @Operation(summary = "Get all customers",
+               description = "Returns a page of customers in ID order; the next page cursor is in the X-Next-Cursor and Link headers")
     @APIResponse(responseCode = "200", description = "Successful retrieval of customers",
             content = @Content(schema = @Schema(implementation = Customer.class)))
-    public Response getAllCustomers() {
-        log.info("GET /customers - Getting all customers");
-        List<Customer> customers = customerService.findAllCustomers();
-        return Response.ok(customers).build();
+    @APIResponse(responseCode = "400", description = "Invalid page size")
+    public Response getAllCustomers(
+            @Parameter(description = "Return customers after this ID (the X-Next-Cursor of the previous page)")
+            @QueryParam("after") Long after,
+            @Parameter(description = "Maximum number of customers to return")
+            @QueryParam("limit") Integer limit,
+            @Context UriInfo uriInfo) {
+        log.info("GET /customers - Getting customers after " + after);
+        int pageSize = pagination.limit(limit);
+        return pagination.response(customerService.findCustomers(after, pageSize), pageSize, uriInfo);
     }
 
     /**
@@ -60,7 +84,7 @@ public class CustomerResource {
     @APIResponse(responseCode = "404", description = "Customer not found")
     public Response getCustomerById(@PathParam("id") Long id) {
         log.info("GET /customers/" + id + " - Getting customer by id");
-        Customer customer = customerService.findCustomerById(id);
+        Customer customer = customerService.findCustomerByIdCached(id);
         return Response.ok(customer).build();
     }
 
@@ -119,5 +143,36 @@ public class CustomerResource {
         customerService.deleteCustomer(id);
         return Response.noContent().build();
     }
-}
 
+    /**
+     * Upsert many customers by email from a streamed CSV or NDJSON body.
+     *
+     * @param headers the request headers, for the content type
+     * @param offset  the number of rows to skip, to resume from an earlier checkpoint
+     * @param body    the CSV (with a header row) or NDJSON rows
+     * @return the inserted, updated, unchanged, duplicate and rejected counts and the checkpoint
+     */
+    @POST
+    @Path("/import")
+    @Consumes({CommodityResource.TEXT_CSV, BookingResource.APPLICATION_NDJSON})
+    @Operation(summary = "Import customers",
+               description = "Inserts or updates customers by email from CSV (columns firstName, lastName, email, phoneNumber) " +
+                             "or NDJSON, in batched transactions; invalid rows are reported and skipped")
+    @APIResponse(responseCode = "200", description = "Import processed; see the checkpoint and per-row errors",
+            content = @Content(schema = @Schema(implementation = CustomerImportResponse.class)))
+    @APIResponse(responseCode = "400", description = "CSV header missing a column, or negative offset")
+    public Response importCustomers(
+            @Context HttpHeaders headers,
+            @Parameter(description = "Skip this many rows (the checkpoint of an earlier import)")
+            @QueryParam("offset") @DefaultValue("0") long offset,
+            InputStream body) {
+        log.info("POST /customers/import - Importing customers as " + headers.getMediaType() + " from row " + (offset + 1));
+        if (offset < 0) {
+            throw new WebApplicationException("Offset must not be negative", Response.Status.BAD_REQUEST);
+        }
+        CustomerImportResponse response = MediaType.valueOf(CommodityResource.TEXT_CSV).isCompatible(headers.getMediaType())
+                ? customerImporter.importCsv(body, offset)
+                : customerImporter.importNdjson(body, offset);
+        return Response.ok(response).build();
+    }
+}
@@ -1,5 +1,6 @@
 package uk.ac.newcastle.enterprisemiddleware.rest;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.transaction.UserTransaction;
 import jakarta.ws.rs.*;
@@ -28,6 +29,7 @@ import java.util.logging.Logger;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Tag(name = "GuestBooking", description = "Guest booking operations with manual JTA transaction management")
+@RunOnVirtualThread
 public class GuestBookingResource {
 
     @Inject
@@ -80,7 +82,7 @@ public class GuestBookingResource {
             
             // Step 2: Validate commodity exists and has stock
             log.info("Step 2: Validating commodity ID: " + request.getCommodityId());
-            commodityService.findCommodityById(request.getCommodityId());
+            commodityService.findCommodityByIdCached(request.getCommodityId());
             
             // Step 3: Create the booking
             log.info("Step 3: Creating booking for customer " + createdCustomer.getId() + 
@@ -0,0 +1,76 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.util.KeysetPage;
+
+/**
+ * Page size limits and response headers shared by the paginated list endpoints.
+ *
+ * List endpoints keep returning a plain JSON array. When more items follow, the cursor of the
+ * next page is returned in an {@code X-Next-Cursor} header and as a {@code Link} header with
+ * {@code rel="next"}.
+ */
+@ApplicationScoped
+public class Pagination {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @ConfigProperty(name = "pagination.default-limit", defaultValue = "100")
+    int defaultLimit;
+
+    @ConfigProperty(name = "pagination.max-limit", defaultValue = "1000")
+    int maxLimit;
+
+    /**
+     * Resolve the page size of a request.
+     *
+     * @param limit the requested page size, or null for the default
+     * @return the page size, capped at the configured maximum
+     * @throws WebApplicationException if the requested page size is less than one
+     */
+    public int limit(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1) {
+            throw new WebApplicationException("limit must be at least 1", Response.Status.BAD_REQUEST);
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    /**
+     * Build the response for a page, with next page headers if more items follow.
+     *
+     * @param page    the page
+     * @param limit   the page size used
+     * @param uriInfo the request URI, used to build the next page link
+     * @return the response
+     */
+    public Response response(KeysetPage<?> page, int limit, UriInfo uriInfo) {
+        return response(Response.ok(page.getItems()), page.getNext(), limit, uriInfo);
+    }
+
+    /**
+     * Build the response for a page whose body is already set, with next page headers if more items follow.
+     *
+     * @param response the response with the page as its entity
+     * @param next     the cursor of the next page, or null if this is the last page
+     * @param limit    the page size used
+     * @param uriInfo  the request URI, used to build the next page link
+     * @return the response
+     */
+    public Response response(Response.ResponseBuilder response, Long next, int limit, UriInfo uriInfo) {
+        if (next != null) {
+            response.header(NEXT_CURSOR_HEADER, next);
+            response.link(uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", next)
+                    .replaceQueryParam("limit", limit)
+                    .build(), "next");
+        }
+        return response.build();
+    }
+}
@@ -1,31 +1,44 @@
 package uk.ac.newcastle.enterprisemiddleware.rest;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceException;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 import uk.ac.newcastle.enterprisemiddleware.client.HotelBookingRequest;
-import uk.ac.newcastle.enterprisemiddleware.client.HotelBookingResponse;
-import uk.ac.newcastle.enterprisemiddleware.client.HotelServiceClient;
 import uk.ac.newcastle.enterprisemiddleware.client.TaxiBookingRequest;
-import uk.ac.newcastle.enterprisemiddleware.client.TaxiBookingResponse;
-import uk.ac.newcastle.enterprisemiddleware.client.TaxiServiceClient;
+import uk.ac.newcastle.enterprisemiddleware.client.TravelServiceGateway;
 import uk.ac.newcastle.enterprisemiddleware.entity.Booking;
+import uk.ac.newcastle.enterprisemiddleware.entity.SeatHold;
 import uk.ac.newcastle.enterprisemiddleware.rest.dto.TravelAgentBookingRequest;
 import uk.ac.newcastle.enterprisemiddleware.rest.dto.TravelAgentBookingResponse;
 import uk.ac.newcastle.enterprisemiddleware.service.BookingService;
+import uk.ac.newcastle.enterprisemiddleware.service.IdempotencyService;
+import uk.ac.newcastle.enterprisemiddleware.service.SeatHoldService;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
  * Travel Agent Resource for coordinating distributed bookings
  * Implements Saga pattern with compensation-based rollback
+ * The hotel and taxi calls run concurrently with the local flight booking, so the saga takes about
+ * as long as the slower remote call rather than the sum of both
+ * The remote calls go through {@link TravelServiceGateway}, so a slow or failing service costs a
+ * saga at most the gateway timeout and fails it straight away while that service's circuit is open
  */
 @Path("/travel-agent")
 @Produces(MediaType.APPLICATION_JSON)
@@ -37,136 +50,319 @@ public class TravelAgentResource {
     Logger log;
 
     @Inject
-    @RestClient
-    HotelServiceClient hotelServiceClient;
+    TravelServiceGateway travelServices;
 
     @Inject
-    @RestClient
-    TaxiServiceClient taxiServiceClient;
+    BookingService bookingService;
 
     @Inject
-    BookingService bookingService;
+    SeatHoldService seatHoldService;
+
+    @Inject
+    IdempotencyService idempotencyService;
+
+    @Inject
+    ManagedExecutor executor;
 
     /**
      * Create a travel booking (Hotel + Flight + Taxi) with distributed transaction coordination
      *
-     * @param request Travel booking request
+     * @param request        Travel booking request
+     * @param idempotencyKey Client-chosen key that makes retries of the request safe, if any
      * @return Travel booking response with all booking IDs or error
      */
     @POST
     @Path("/bookings")
+    @RunOnVirtualThread
     @Operation(summary = "Create travel booking", 
                description = "Creates hotel, flight, and taxi bookings. Implements compensation pattern - " +
                              "if any booking fails, successful bookings are automatically cancelled.")
     @APIResponse(responseCode = "201", description = "Travel booking created successfully",
             content = @Content(schema = @Schema(implementation = TravelAgentBookingResponse.class)))
-    @APIResponse(responseCode = "400", description = "Invalid request data")
-    @APIResponse(responseCode = "500", description = "Booking failed, compensation executed")
-    public Response createTravelBooking(TravelAgentBookingRequest request) {
+    @APIResponse(responseCode = "400", description = "Invalid request data or flight sold out, compensation executed")
+    @APIResponse(responseCode = "404", description = "Flight or customer not found, compensation executed")
+    @APIResponse(responseCode = "409", description = "Flight already booked by this customer, compensation executed")
+    @APIResponse(responseCode = "422", description = "Idempotency key already used for a different request")
+    @APIResponse(responseCode = "500", description = "Hotel or taxi booking failed, compensation executed")
+    @APIResponse(responseCode = "503", description = "Hotel or taxi service timed out or unavailable, compensation executed")
+    public Response createTravelBooking(
+            TravelAgentBookingRequest request,
+            @Parameter(description = "Key that makes retries safe; a repeated key returns the original response")
+            @HeaderParam(IdempotencyService.HEADER) String idempotencyKey) {
+        // A saga failed by a remote service (5xx) has been compensated and is not stored, so it can be retried
+        // with the same key; one rejected locally (4xx, e.g. a sold out flight) is replayed like other client errors
+        return idempotencyService.execute("POST /travel-agent/bookings", idempotencyKey, request,
+                () -> bookTravel(request));
+    }
+
+    /**
+     * Create a travel booking (Hotel + Flight + Taxi) as a non-blocking pipeline
+     * No thread is held while the hotel and taxi services respond; only the local database steps
+     * run on worker threads, so the number of sagas in flight is not limited by the worker pool
+     *
+     * @param request Travel booking request
+     * @return Travel booking response with all booking IDs or error, when the saga completes
+     */
+    @POST
+    @Path("/bookings/async")
+    @Operation(summary = "Create travel booking without blocking",
+               description = "Same saga as POST /travel-agent/bookings, built as an asynchronous pipeline. " +
+                             "Idempotency keys are not supported on this endpoint.")
+    @APIResponse(responseCode = "201", description = "Travel booking created successfully",
+            content = @Content(schema = @Schema(implementation = TravelAgentBookingResponse.class)))
+    @APIResponse(responseCode = "400", description = "Flight sold out, compensation executed")
+    @APIResponse(responseCode = "404", description = "Flight or customer not found, compensation executed")
+    @APIResponse(responseCode = "409", description = "Flight already booked by this customer, compensation executed")
+    @APIResponse(responseCode = "500", description = "Hotel or taxi booking failed, compensation executed")
+    @APIResponse(responseCode = "503", description = "Hotel or taxi service timed out or unavailable, compensation executed")
+    public Uni<Response> createTravelBookingAsync(TravelAgentBookingRequest request) {
+        log.info("Travel Agent: Creating travel booking for customer " + request.getCustomerId() + " asynchronously");
+
+        int flightSeats = request.getPassengerCount() != null ? request.getPassengerCount() : 1;
+
+        // Step 0: Hold the flight seats first, then book all three legs concurrently
+        return blocking(() -> seatHoldService.placeHold(request.getFlightCommodityId(), flightSeats).getId())
+                .onItem().transformToUni(flightHoldId -> Uni.combine().all().unis(
+                                leg(travelServices.bookHotel(hotelRequest(request))),
+                                leg(blocking(() -> bookingService.createBooking(
+                                        request.getCustomerId(),
+                                        request.getFlightCommodityId(),
+                                        flightSeats,
+                                        flightHoldId
+                                ).getId())),
+                                leg(travelServices.bookTaxi(taxiRequest(request))))
+                        .asTuple()
+                        .onItem().transformToUni(legs ->
+                                complete(request, flightHoldId, legs.getItem1(), legs.getItem2(), legs.getItem3())))
+                .onFailure().recoverWithItem(e -> {
+                    log.severe("Travel booking failed: " + e.getMessage());
+                    return failed(null, null, null, e, true);
+                });
+    }
+
+    private Response bookTravel(TravelAgentBookingRequest request) {
         log.info("Travel Agent: Creating travel booking for customer " + request.getCustomerId());
         
-        Long hotelBookingId = null;
+        int flightSeats = request.getPassengerCount() != null ? request.getPassengerCount() : 1;
+
+        // Step 0: Hold the flight seats first, so a sold out flight fails before any remote call
+        log.info("Step 0: Holding " + flightSeats + " seats on flight commodity " + request.getFlightCommodityId());
+        String flightHoldId;
+        try {
+            flightHoldId = seatHoldService.placeHold(request.getFlightCommodityId(), flightSeats).getId();
+        } catch (Exception e) {
+            log.severe("Travel booking failed: " + e.getMessage());
+            return failed(null, null, null, e, true);
+        }
+
+        // Steps 1 and 3: Book hotel and taxi (external services) concurrently, as they are independent;
+        // the calls are non-blocking, so only this thread waits for them
+        log.info("Step 1: Booking hotel " + request.getHotelId());
+        CompletableFuture<Long> hotel = travelServices.bookHotel(hotelRequest(request)).subscribeAsCompletionStage();
+        log.info("Step 3: Booking taxi " + request.getTaxiId());
+        CompletableFuture<Long> taxi = travelServices.bookTaxi(taxiRequest(request)).subscribeAsCompletionStage();
+
+        // Step 2: Book Flight (local service) on this thread while the remote calls are in flight
+        log.info("Step 2: Booking flight commodity " + request.getFlightCommodityId());
         Long flightBookingId = null;
-        Long taxiBookingId = null;
-        
+        Throwable failure = null;
         try {
-            // Step 1: Book Hotel (external service)
-            log.info("Step 1: Booking hotel " + request.getHotelId());
-            HotelBookingRequest hotelRequest = new HotelBookingRequest(
-                    request.getCustomerId(),
-                    request.getHotelId(),
-                    request.getDate()
-            );
-            
-            HotelBookingResponse hotelResponse = hotelServiceClient.createBooking(hotelRequest);
-            hotelBookingId = hotelResponse.getId();
-            log.info("Hotel booking created with ID: " + hotelBookingId);
-            
-            // Step 2: Book Flight (local service)
-            log.info("Step 2: Booking flight commodity " + request.getFlightCommodityId());
             Booking flightBooking = bookingService.createBooking(
                     request.getCustomerId(),
-                    request.getFlightCommodityId()
+                    request.getFlightCommodityId(),
+                    flightSeats,
+                    flightHoldId
             );
             flightBookingId = flightBooking.getId();
             log.info("Flight booking created with ID: " + flightBookingId);
-            
-            // Step 3: Book Taxi (external service)
-            log.info("Step 3: Booking taxi " + request.getTaxiId());
-            TaxiBookingRequest taxiRequest = new TaxiBookingRequest();
-            taxiRequest.setCustomerId(request.getCustomerId());
-            taxiRequest.setTaxiId(request.getTaxiId());
-            taxiRequest.setBookingDate(request.getDate());
-            taxiRequest.setDepartureDate(request.getDate());
-            taxiRequest.setDepartureLocation(request.getDepartureLocation() != null ? request.getDepartureLocation() : "Airport");
-            taxiRequest.setDestination(request.getDestination() != null ? request.getDestination() : "Hotel");
-            taxiRequest.setPassengerCount(request.getPassengerCount() != null ? request.getPassengerCount() : 1);
-            
-            TaxiBookingResponse taxiResponse = taxiServiceClient.createBooking(taxiRequest);
-            taxiBookingId = taxiResponse.getId();
+        } catch (Exception e) {
+            failure = e;
+        }
+
+        // Wait for every leg, so the compensation knows exactly which ones succeeded
+        Long hotelBookingId = null;
+        Long taxiBookingId = null;
+        try {
+            hotelBookingId = hotel.join();
+            log.info("Hotel booking created with ID: " + hotelBookingId);
+        } catch (CompletionException e) {
+            failure = failure != null ? failure : e.getCause();
+        }
+        try {
+            taxiBookingId = taxi.join();
             log.info("Taxi booking created with ID: " + taxiBookingId);
-            
-            // Success - all bookings completed
-            TravelAgentBookingResponse response = new TravelAgentBookingResponse(
-                    hotelBookingId,
-                    flightBookingId,
-                    taxiBookingId,
-                    "SUCCESS",
-                    "Travel booking completed successfully"
-            );
-            
-            log.info("Travel booking completed successfully");
-            return Response.status(Response.Status.CREATED).entity(response).build();
-            
+        } catch (CompletionException e) {
+            failure = failure != null ? failure : e.getCause();
+        }
+
+        if (failure == null) {
+            return succeeded(hotelBookingId, flightBookingId, taxiBookingId);
+        }
+
+        log.severe("Travel booking failed: " + failure.getMessage());
+        log.info("Executing compensation (rollback)...");
+
+        // Compensation: cancel the legs that succeeded, each on its own so one failure does not skip the rest
+        if (taxiBookingId != null) {
+            Long id = taxiBookingId;
+            compensate("taxi booking " + id, () -> travelServices.cancelTaxi(id).await().indefinitely());
+        }
+        if (flightBookingId != null) {
+            Long id = flightBookingId;
+            compensate("flight booking " + id, () -> bookingService.cancelBooking(id));
+        } else {
+            compensate("flight seat hold " + flightHoldId,
+                    () -> seatHoldService.releaseHold(flightHoldId, request.getFlightCommodityId()));
+        }
+        if (hotelBookingId != null) {
+            Long id = hotelBookingId;
+            compensate("hotel booking " + id, () -> travelServices.cancelHotel(id).await().indefinitely());
+        }
+
+        return failed(hotelBookingId, flightBookingId, taxiBookingId, failure, flightBookingId == null);
+    }
+
+    /**
+     * The outcome of one saga leg: the booking ID if it succeeded, or the failure
+     */
+    private record Leg(Long id, Throwable failure) {
+    }
+
+    private static Uni<Leg> leg(Uni<Long> booking) {
+        return booking.onItem().transform(id -> new Leg(id, null))
+                .onFailure().recoverWithItem(e -> new Leg(null, e));
+    }
+
+    private Uni<Response> complete(TravelAgentBookingRequest request, String flightHoldId, Leg hotel, Leg flight, Leg taxi) {
+        Throwable failure = flight.failure() != null ? flight.failure()
+                : hotel.failure() != null ? hotel.failure() : taxi.failure();
+        if (failure == null) {
+            return Uni.createFrom().item(succeeded(hotel.id(), flight.id(), taxi.id()));
+        }
+
+        log.severe("Travel booking failed: " + failure.getMessage());
+        log.info("Executing compensation (rollback)...");
+
+        // Compensation: cancel the legs that succeeded, concurrently
+        List<Uni<Void>> compensations = new ArrayList<>();
+        if (taxi.id() != null) {
+            compensations.add(compensateAsync("taxi booking " + taxi.id(),
+                    travelServices.cancelTaxi(taxi.id())));
+        }
+        if (flight.id() != null) {
+            compensations.add(compensateAsync("flight booking " + flight.id(),
+                    blocking(() -> bookingService.cancelBooking(flight.id()))));
+        } else {
+            compensations.add(compensateAsync("flight seat hold " + flightHoldId,
+                    blocking(() -> seatHoldService.releaseHold(flightHoldId, request.getFlightCommodityId()))));
+        }
+        if (hotel.id() != null) {
+            compensations.add(compensateAsync("hotel booking " + hotel.id(),
+                    travelServices.cancelHotel(hotel.id())));
+        }
+        return Uni.join().all(compensations).andCollectFailures()
+                .replaceWith(failed(hotel.id(), flight.id(), taxi.id(), failure, flight.id() == null));
+    }
+
+    private Uni<Void> compensateAsync(String leg, Uni<?> cancel) {
+        log.info("Cancelling " + leg);
+        return cancel.replaceWithVoid()
+                .onFailure().invoke(e -> log.severe("Compensation of " + leg + " failed: " + e.getMessage()))
+                .onFailure().recoverWithNull();
+    }
+
+    private <T> Uni<T> blocking(Supplier<T> step) {
+        return Uni.createFrom().item(step).runSubscriptionOn(executor);
+    }
+
+    private Uni<Void> blocking(Runnable step) {
+        return blocking(() -> {
+            step.run();
+            return null;
+        });
+    }
+
+    private static HotelBookingRequest hotelRequest(TravelAgentBookingRequest request) {
+        return new HotelBookingRequest(
+                request.getCustomerId(),
+                request.getHotelId(),
+                request.getDate()
+        );
+    }
+
+    private static TaxiBookingRequest taxiRequest(TravelAgentBookingRequest request) {
+        TaxiBookingRequest taxiRequest = new TaxiBookingRequest();
+        taxiRequest.setCustomerId(request.getCustomerId());
+        taxiRequest.setTaxiId(request.getTaxiId());
+        taxiRequest.setBookingDate(request.getDate());
+        taxiRequest.setDepartureDate(request.getDate());
+        taxiRequest.setDepartureLocation(request.getDepartureLocation() != null ? request.getDepartureLocation() : "Airport");
+        taxiRequest.setDestination(request.getDestination() != null ? request.getDestination() : "Hotel");
+        taxiRequest.setPassengerCount(request.getPassengerCount() != null ? request.getPassengerCount() : 1);
+        return taxiRequest;
+    }
+
+    private void compensate(String leg, Runnable cancel) {
+        log.info("Cancelling " + leg);
+        try {
+            cancel.run();
         } catch (Exception e) {
-            log.severe("Travel booking failed: " + e.getMessage());
-            log.info("Executing compensation (rollback)...");
-            
-            // Compensation: Cancel successful bookings in reverse order
-            try {
-                if (taxiBookingId != null) {
-                    log.info("Cancelling taxi booking " + taxiBookingId);
-                    taxiServiceClient.cancelBooking(taxiBookingId);
-                }
-                
-                if (flightBookingId != null) {
-                    log.info("Cancelling flight booking " + flightBookingId);
-                    bookingService.cancelBooking(flightBookingId);
-                }
-                
-                if (hotelBookingId != null) {
-                    log.info("Cancelling hotel booking " + hotelBookingId);
-                    hotelServiceClient.cancelBooking(hotelBookingId);
-                }
-                
-                log.info("Compensation completed successfully");
-            } catch (Exception compensationError) {
-                log.severe("Compensation failed: " + compensationError.getMessage());
-            }
-            
-            // Return error response
-            TravelAgentBookingResponse errorResponse = new TravelAgentBookingResponse(
-                    hotelBookingId,
-                    flightBookingId,
-                    taxiBookingId,
-                    "FAILED",
-                    "Travel booking failed: " + e.getMessage() + ". All bookings have been cancelled."
-            );
-            
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(errorResponse)
-                    .build();
+            log.severe("Compensation of " + leg + " failed: " + e.getMessage());
+        }
+    }
+
+    private Response succeeded(Long hotelBookingId, Long flightBookingId, Long taxiBookingId) {
+        TravelAgentBookingResponse response = new TravelAgentBookingResponse(
+                hotelBookingId,
+                flightBookingId,
+                taxiBookingId,
+                "SUCCESS",
+                "Travel booking completed successfully"
+        );
+        
+        log.info("Travel booking completed successfully");
+        return Response.status(Response.Status.CREATED).entity(response).build();
+    }
+
+    /**
+     * The FAILED response of a compensated saga
+     *
+     * @param local whether the failure is the seat hold's or the flight booking's, which are reported
+     *              with their own client error status (e.g. 400 for a sold out flight) like the booking API
+     */
+    private static Response failed(Long hotelBookingId, Long flightBookingId, Long taxiBookingId, Throwable failure,
+                                   boolean local) {
+        TravelAgentBookingResponse errorResponse = new TravelAgentBookingResponse(
+                hotelBookingId,
+                flightBookingId,
+                taxiBookingId,
+                "FAILED",
+                "Travel booking failed: " + failure.getMessage() + ". All bookings have been cancelled."
+        );
+        
+        // A timeout, an open circuit or a full bulkhead means a dependency is unavailable, not that the request is bad
+        int status = failure instanceof FaultToleranceException
+                ? Response.Status.SERVICE_UNAVAILABLE.getStatusCode() : Response.Status.INTERNAL_SERVER_ERROR.getStatusCode();
+        if (local && failure instanceof WebApplicationException rejected && rejected.getResponse().getStatus() < 500) {
+            status = rejected.getResponse().getStatus();
         }
+        return Response.status(status)
+                .entity(errorResponse)
+                .build();
     }
 
     /**
-     * Health check endpoint for Travel Agent service
+     * Health check endpoint for Travel Agent service, with the circuit breaker state of each remote service
      */
     @GET
     @Path("/health")
-    @Operation(summary = "Health check", description = "Check if Travel Agent service is operational")
+    @RunOnVirtualThread
+    @Operation(summary = "Health check", description = "Check if Travel Agent service is operational " +
+                                                       "and whether the hotel and taxi circuits are closed")
     public Response healthCheck() {
-        return Response.ok("{\"status\": \"Travel Agent service is running\"}").build();
+        return Response.ok("{\"status\": \"Travel Agent service is running\", " +
+                "\"hotelCircuit\": \"" + travelServices.state(TravelServiceGateway.HOTEL) + "\", " +
+                "\"taxiCircuit\": \"" + travelServices.state(TravelServiceGateway.TAXI) + "\"}").build();
     }
 }
 
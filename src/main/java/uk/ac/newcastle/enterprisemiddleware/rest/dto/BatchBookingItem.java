@@ -0,0 +1,62 @@
+package uk.ac.newcastle.enterprisemiddleware.rest.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * DTO for one booking in a batch booking request.
+ */
+public class BatchBookingItem {
+
+    @NotNull(message = "Customer ID is required")
+    private Long customerId;
+
+    @NotNull(message = "Commodity ID is required")
+    private Long commodityId;
+
+    @Min(value = 1, message = "At least one seat must be booked")
+    private Integer seats;
+
+    // Constructors
+    public BatchBookingItem() {
+    }
+
+    public BatchBookingItem(Long customerId, Long commodityId) {
+        this.customerId = customerId;
+        this.commodityId = commodityId;
+    }
+
+    // Getters and Setters
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getCommodityId() {
+        return commodityId;
+    }
+
+    public void setCommodityId(Long commodityId) {
+        this.commodityId = commodityId;
+    }
+
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public void setSeats(Integer seats) {
+        this.seats = seats;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchBookingItem{" +
+                "customerId=" + customerId +
+                ", commodityId=" + commodityId +
+                ", seats=" + seats +
+                '}';
+    }
+}
@@ -0,0 +1,50 @@
+package uk.ac.newcastle.enterprisemiddleware.rest.dto;
+
+import java.util.List;
+
+/**
+ * DTO for batch booking response, with one result per requested booking in request order.
+ */
+public class BatchBookingResponse {
+
+    private int succeeded;
+    private int failed;
+    private List<BatchBookingResult> results;
+
+    // Constructors
+    public BatchBookingResponse() {
+    }
+
+    public BatchBookingResponse(List<BatchBookingResult> results) {
+        this.results = results;
+        this.succeeded = (int) results.stream()
+                .filter(result -> BatchBookingResult.CREATED.equals(result.getStatus()))
+                .count();
+        this.failed = results.size() - succeeded;
+    }
+
+    // Getters and Setters
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchBookingResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchBookingResult> results) {
+        this.results = results;
+    }
+}
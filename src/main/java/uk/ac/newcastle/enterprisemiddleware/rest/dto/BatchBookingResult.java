@@ -0,0 +1,112 @@
+package uk.ac.newcastle.enterprisemiddleware.rest.dto;
+
+/**
+ * DTO for the outcome of one booking in a batch booking request.
+ */
+public class BatchBookingResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+
+    private int index;
+    private Long customerId;
+    private Long commodityId;
+    private int seats;
+    private Long bookingId;
+    private String status;
+    private String message;
+
+    // Constructors
+    public BatchBookingResult() {
+    }
+
+    public BatchBookingResult(int index, Long customerId, Long commodityId, int seats) {
+        this.index = index;
+        this.customerId = customerId;
+        this.commodityId = commodityId;
+        this.seats = seats;
+    }
+
+    /**
+     * Mark this item as booked.
+     *
+     * @param bookingId the ID of the created booking
+     * @return this result
+     */
+    public BatchBookingResult created(Long bookingId) {
+        this.bookingId = bookingId;
+        this.status = CREATED;
+        this.message = null;
+        return this;
+    }
+
+    /**
+     * Mark this item as failed.
+     *
+     * @param message the reason the booking was not created
+     * @return this result
+     */
+    public BatchBookingResult failed(String message) {
+        this.bookingId = null;
+        this.status = FAILED;
+        this.message = message;
+        return this;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getCommodityId() {
+        return commodityId;
+    }
+
+    public void setCommodityId(Long commodityId) {
+        this.commodityId = commodityId;
+    }
+
+    public int getSeats() {
+        return seats;
+    }
+
+    public void setSeats(int seats) {
+        this.seats = seats;
+    }
+
+    public Long getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(Long bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,97 @@
+package uk.ac.newcastle.enterprisemiddleware.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.entity.Customer;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * DTO for booking reads, selected as a projection of the Booking columns only.
+ * The customer and commodity are included only when requested with {@code expand}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookingView {
+
+    public static final String EXPAND_CUSTOMER = "customer";
+    public static final String EXPAND_COMMODITY = "commodity";
+    public static final Set<String> EXPANDABLE = Set.of(EXPAND_CUSTOMER, EXPAND_COMMODITY);
+
+    private Long id;
+    private LocalDate bookingDate;
+    private Long customerId;
+    private Long commodityId;
+    private Integer seats;
+    private Customer customer;
+    private Commodity commodity;
+
+    // Constructors
+    public BookingView() {
+    }
+
+    public BookingView(Long id, LocalDate bookingDate, Long customerId, Long commodityId, Integer seats) {
+        this.id = id;
+        this.bookingDate = bookingDate;
+        this.customerId = customerId;
+        this.commodityId = commodityId;
+        this.seats = seats;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getBookingDate() {
+        return bookingDate;
+    }
+
+    public void setBookingDate(LocalDate bookingDate) {
+        this.bookingDate = bookingDate;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getCommodityId() {
+        return commodityId;
+    }
+
+    public void setCommodityId(Long commodityId) {
+        this.commodityId = commodityId;
+    }
+
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public void setSeats(Integer seats) {
+        this.seats = seats;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(Customer customer) {
+        this.customer = customer;
+    }
+
+    public Commodity getCommodity() {
+        return commodity;
+    }
+
+    public void setCommodity(Commodity commodity) {
+        this.commodity = commodity;
+    }
+}
@@ -0,0 +1,45 @@
+package uk.ac.newcastle.enterprisemiddleware.rest.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a commodity import. Rows are numbered from 1, not counting a CSV header;
+ * blank rows are skipped but keep their number.
+ * At most a configured number of errors are listed; {@code failed} counts all of them.
+ */
+public class CommodityImportResponse {
+
+    private long imported;
+    private long failed;
+    private List<ImportError> errors = new ArrayList<>();
+
+    // Constructors
+    public CommodityImportResponse() {
+    }
+
+    // Getters and Setters
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<ImportError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportError> errors) {
+        this.errors = errors;
+    }
+}
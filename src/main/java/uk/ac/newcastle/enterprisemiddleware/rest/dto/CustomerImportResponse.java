@@ -0,0 +1,97 @@
+package uk.ac.newcastle.enterprisemiddleware.rest.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a customer import. Rows are numbered from 1 from the start of the input,
+ * not counting a CSV header, including rows skipped by the requested offset.
+ *
+ * {@code checkpoint} is the number of rows that are committed or rejected; if {@code complete} is
+ * false the import stopped early, and sending the same input again with that checkpoint as the
+ * offset resumes it. At most a configured number of errors are listed.
+ *
+ * {@code duplicates} counts valid rows that were not written because a later row in the same
+ * chunk has the same email; every other valid row is counted once as inserted, updated or
+ * unchanged.
+ */
+public class CustomerImportResponse {
+
+    private long inserted;
+    private long updated;
+    private long unchanged;
+    private long duplicates;
+    private long rejected;
+    private long checkpoint;
+    private boolean complete;
+    private List<ImportError> errors = new ArrayList<>();
+
+    // Constructors
+    public CustomerImportResponse() {
+    }
+
+    // Getters and Setters
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(long unchanged) {
+        this.unchanged = unchanged;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(long duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(long checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public List<ImportError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportError> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,36 @@
+package uk.ac.newcastle.enterprisemiddleware.rest.dto;
+
+/**
+ * DTO for a row of a bulk import that was rejected.
+ */
+public class ImportError {
+
+    private long row;
+    private String message;
+
+    // Constructors
+    public ImportError() {
+    }
+
+    public ImportError(long row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
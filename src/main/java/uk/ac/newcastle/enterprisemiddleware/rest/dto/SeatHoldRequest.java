@@ -0,0 +1,38 @@
+package uk.ac.newcastle.enterprisemiddleware.rest.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * DTO for seat hold creation request.
+ */
+public class SeatHoldRequest {
+
+    @NotNull(message = "Number of seats is required")
+    @Min(value = 1, message = "At least one seat must be held")
+    private Integer seats;
+
+    // Constructors
+    public SeatHoldRequest() {
+    }
+
+    public SeatHoldRequest(Integer seats) {
+        this.seats = seats;
+    }
+
+    // Getters and Setters
+    public Integer getSeats() {
+        return seats;
+    }
+
+    public void setSeats(Integer seats) {
+        this.seats = seats;
+    }
+
+    @Override
+    public String toString() {
+        return "SeatHoldRequest{" +
+                "seats=" + seats +
+                '}';
+    }
+}
@@ -1,18 +1,46 @@
 package uk.ac.newcastle.enterprisemiddleware.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.ScrollableResults;
 import uk.ac.newcastle.enterprisemiddleware.entity.Booking;
 import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
 import uk.ac.newcastle.enterprisemiddleware.entity.Customer;
 import uk.ac.newcastle.enterprisemiddleware.repository.BookingRepository;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.BatchBookingItem;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.BatchBookingResponse;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.BatchBookingResult;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.BookingView;
+import uk.ac.newcastle.enterprisemiddleware.util.ColumnarWriter;
+import uk.ac.newcastle.enterprisemiddleware.util.CsvWriter;
+import uk.ac.newcastle.enterprisemiddleware.util.KeysetPage;
 
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * Service class for Booking business logic.
@@ -20,6 +48,27 @@ import java.util.logging.Logger;
 @ApplicationScoped
 public class BookingService {
 
+    /**
+     * Formats of the booking export.
+     */
+    public enum ExportFormat {
+        NDJSON, CSV, COLUMNAR
+    }
+
+    /**
+     * The CSV and columnar export columns, in the order of {@link BookingRepository#scrollExportRows}.
+     */
+    private static final LinkedHashMap<String, ColumnarWriter.Type> EXPORT_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        EXPORT_COLUMNS.put("id", ColumnarWriter.Type.LONG);
+        EXPORT_COLUMNS.put("bookingDate", ColumnarWriter.Type.DATE);
+        EXPORT_COLUMNS.put("customerId", ColumnarWriter.Type.LONG);
+        EXPORT_COLUMNS.put("commodityId", ColumnarWriter.Type.LONG);
+        EXPORT_COLUMNS.put("seats", ColumnarWriter.Type.LONG);
+        EXPORT_COLUMNS.put("price", ColumnarWriter.Type.DOUBLE);
+    }
+
     @Inject
     Logger log;
 
@@ -32,14 +81,52 @@ public class BookingService {
     @Inject
     CommodityService commodityService;
 
+    @Inject
+    SeatHoldService seatHoldService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "booking.batch.max-size", defaultValue = "500")
+    int maxBatchSize;
+
+    @ConfigProperty(name = "booking.export.fetch-size", defaultValue = "500")
+    int exportFetchSize;
+
+    @ConfigProperty(name = "booking.export.columnar.chunk-size", defaultValue = "8192")
+    int exportColumnarChunkSize;
+
     /**
-     * Get all bookings.
+     * Get a page of bookings in id order.
      *
-     * @return list of all bookings
+     * @param after  the last booking ID of the previous page, or null for the first page
+     * @param limit  the page size
+     * @param expand the relations to include in full, from {@link BookingView#EXPANDABLE}
+     * @return the page of bookings
+     */
+    public KeysetPage<BookingView> findBookings(Long after, int limit, Set<String> expand) {
+        log.info("Finding " + limit + " bookings after id " + after);
+        KeysetPage<BookingView> page = KeysetPage.of(bookingRepository.findViewPage(after, limit + 1), limit,
+                BookingView::getId);
+        expand(page.getItems(), expand);
+        return page;
+    }
+
+    /**
+     * Get a booking by ID as a view.
+     *
+     * @param id     the booking ID
+     * @param expand the relations to include in full, from {@link BookingView#EXPANDABLE}
+     * @return the booking
+     * @throws WebApplicationException if booking not found
      */
-    public List<Booking> findAllBookings() {
-        log.info("Finding all bookings");
-        return bookingRepository.listAll();
+    public BookingView findBookingView(Long id, Set<String> expand) {
+        log.info("Finding booking by id: " + id);
+        BookingView booking = bookingRepository.findViewById(id)
+                .orElseThrow(() -> new WebApplicationException("Booking with id " + id + " not found",
+                        Response.Status.NOT_FOUND));
+        expand(List.of(booking), expand);
+        return booking;
     }
 
     /**
@@ -62,11 +149,142 @@ public class BookingService {
      * Get all bookings for a customer.
      *
      * @param customerId the customer ID
+     * @param expand     the relations to include in full, from {@link BookingView#EXPANDABLE}
      * @return list of bookings
      */
-    public List<Booking> findBookingsByCustomerId(Long customerId) {
+    public List<BookingView> findBookingsByCustomerId(Long customerId, Set<String> expand) {
         log.info("Finding bookings for customer id: " + customerId);
-        return bookingRepository.findByCustomerId(customerId);
+        List<BookingView> bookings = bookingRepository.findViewsByCustomerId(customerId);
+        expand(bookings, expand);
+        return bookings;
+    }
+
+    /**
+     * Attach the full customer and/or commodity to each view, loading each relation with a
+     * single query for all of the distinct IDs.
+     */
+    private void expand(List<BookingView> bookings, Set<String> expand) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        if (expand.contains(BookingView.EXPAND_CUSTOMER)) {
+            Map<Long, Customer> customers = customerService.findCustomersByIds(
+                    bookings.stream().map(BookingView::getCustomerId).collect(Collectors.toSet())).stream()
+                    .collect(Collectors.toMap(Customer::getId, Function.identity()));
+            bookings.forEach(booking -> booking.setCustomer(customers.get(booking.getCustomerId())));
+        }
+        if (expand.contains(BookingView.EXPAND_COMMODITY)) {
+            Map<Long, Commodity> commodities = commodityService.findCommoditiesByIds(
+                    bookings.stream().map(BookingView::getCommodityId).collect(Collectors.toSet())).stream()
+                    .collect(Collectors.toMap(Commodity::getId, Function.identity()));
+            bookings.forEach(booking -> booking.setCommodity(commodities.get(booking.getCommodityId())));
+        }
+    }
+
+    /**
+     * Write every booking to the output in id order, as flat rows without the customer and
+     * commodity objects. Rows are streamed from a forward-only cursor and flushed every fetch (or
+     * every columnar chunk), so memory use does not grow with the number of bookings. To export
+     * to a local file, pass a stream opened on it.
+     *
+     * @param output the stream to write to; left open
+     * @param format the output format
+     * @return the number of bookings written
+     * @throws IOException if writing to the output fails
+     */
+    @Transactional
+    public long exportBookings(OutputStream output, ExportFormat format) throws IOException {
+        log.info("Exporting all bookings as " + format);
+        long start = System.nanoTime();
+        CountingOutputStream counted = new CountingOutputStream(output);
+        long rows;
+        try (ScrollableResults<Object[]> results = bookingRepository.scrollExportRows(exportFetchSize)) {
+            rows = switch (format) {
+                case NDJSON -> exportNdjson(results, counted);
+                case CSV -> exportCsv(results, counted);
+                case COLUMNAR -> exportColumnar(results, counted);
+            };
+        }
+        log.info(String.format("Exported %d bookings as %s: %d bytes (%.1f per booking) in %d ms", rows, format,
+                counted.getCount(), rows == 0 ? 0.0 : (double) counted.getCount() / rows,
+                (System.nanoTime() - start) / 1_000_000));
+        return rows;
+    }
+
+    private long exportNdjson(ScrollableResults<Object[]> results, OutputStream output) throws IOException {
+        long rows = 0;
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(output)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            while (results.next()) {
+                Object[] row = results.get();
+                json.writeStartObject();
+                json.writeNumberField("id", (Long) row[0]);
+                json.writeStringField("bookingDate", ((LocalDate) row[1]).toString());
+                json.writeNumberField("customerId", (Long) row[2]);
+                json.writeNumberField("commodityId", (Long) row[3]);
+                json.writeNumberField("seats", (Integer) row[4]);
+                json.writeEndObject();
+                json.writeRaw('\n');
+                if (++rows % exportFetchSize == 0) {
+                    json.flush();
+                }
+            }
+        }
+        return rows;
+    }
+
+    private long exportCsv(ScrollableResults<Object[]> results, OutputStream output) throws IOException {
+        long rows = 0;
+        CsvWriter csv = new CsvWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        csv.write(EXPORT_COLUMNS.keySet().toArray());
+        while (results.next()) {
+            csv.write(results.get());
+            if (++rows % exportFetchSize == 0) {
+                csv.flush();
+            }
+        }
+        csv.flush();
+        return rows;
+    }
+
+    private long exportColumnar(ScrollableResults<Object[]> results, OutputStream output) throws IOException {
+        long rows = 0;
+        ColumnarWriter columnar = new ColumnarWriter(output, EXPORT_COLUMNS, exportColumnarChunkSize);
+        while (results.next()) {
+            columnar.write(results.get());
+            rows++;
+        }
+        columnar.finish();
+        return rows;
+    }
+
+    /**
+     * Counts the bytes written through it, for the export size log.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
     }
 
     /**
@@ -79,34 +297,162 @@ public class BookingService {
      */
     @Transactional
     public Booking createBooking(Long customerId, Long commodityId) {
-        log.info("Creating booking for customer " + customerId + " and commodity " + commodityId);
-        
-        // Validate customer and commodity exist
-        Customer customer = customerService.findCustomerById(customerId);
-        Commodity commodity = commodityService.findCommodityById(commodityId);
+        return createBooking(customerId, commodityId, 1, null);
+    }
+
+    /**
+     * Create a new booking for one or more seats, optionally taking the seats from an existing
+     * seat hold. A group order is a single booking row and a single inventory update.
+     *
+     * @param customerId  the customer ID
+     * @param commodityId the commodity ID
+     * @param seats       the number of seats to book
+     * @param holdId      the seat hold to redeem, or null to take seats from the commodity
+     * @return the created booking
+     * @throws WebApplicationException if seats invalid, customer/commodity/hold not found, hold expired or duplicate booking
+     */
+    @Transactional
+    public Booking createBooking(Long customerId, Long commodityId, int seats, String holdId) {
+        log.info("Creating booking of " + seats + " seats for customer " + customerId + " and commodity " + commodityId);
         
-        // Check if booking already exists
-        if (bookingRepository.existsByCustomerAndCommodity(customerId, commodityId)) {
-            throw new WebApplicationException("Booking already exists for this customer and commodity", 
-                    Response.Status.CONFLICT);
+        if (seats < 1) {
+            throw new WebApplicationException("At least one seat must be booked", Response.Status.BAD_REQUEST);
         }
         
-        // Check commodity availability
-        if (commodity.getQuantity() <= 0) {
-            throw new WebApplicationException("Commodity is out of stock", Response.Status.BAD_REQUEST);
+        // Validate customer exists; the cached copy is only referenced by the booking
+        Customer customer = customerService.findCustomerByIdCached(customerId);
+        
+        if (holdId != null) {
+            // The seats were already taken from the commodity when the hold was placed
+            seatHoldService.redeemHold(holdId, commodityId, seats);
+        } else {
+            // Take the seats with a single conditional update (404 if missing, 400 if sold out)
+            commodityService.decreaseQuantity(commodityId, seats);
         }
         
-        // Create booking
-        Booking booking = new Booking(customer, commodity);
-        bookingRepository.persist(booking);
+        // Load the commodity after the update so the response reflects the new quantity
+        Commodity commodity = commodityService.findCommodityById(commodityId);
         
-        // Decrease commodity quantity
-        commodityService.decreaseQuantity(commodityId);
+        // Create booking; the unique (customer, commodity) index rejects duplicates, and the
+        // rollback that follows gives the seats back
+        Booking booking = new Booking(customer, commodity, seats);
+        try {
+            bookingRepository.persistAndFlush(booking);
+        } catch (PersistenceException e) {
+            if (BookingRepository.isDuplicateBooking(e)) {
+                throw new WebApplicationException("Booking already exists for this customer and commodity",
+                        Response.Status.CONFLICT);
+            }
+            throw e;
+        }
         
         log.info("Booking created successfully");
         return booking;
     }
 
+    /**
+     * Create many bookings in one transaction.
+     * Customers, commodities and existing bookings are each checked with a single query, seats are
+     * taken with one update per commodity, and the bookings are inserted as a JDBC batch. Items that
+     * cannot be booked are reported as failed without affecting the rest of the batch.
+     *
+     * @param items the customer, commodity and seat count of each booking
+     * @return one result per item, in request order
+     * @throws WebApplicationException if the batch is empty or too large, or races a concurrent booking
+     */
+    @Transactional
+    public BatchBookingResponse createBookings(List<BatchBookingItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new WebApplicationException("At least one booking is required", Response.Status.BAD_REQUEST);
+        }
+        if (items.size() > maxBatchSize) {
+            throw new WebApplicationException("At most " + maxBatchSize + " bookings can be created in one batch",
+                    Response.Status.BAD_REQUEST);
+        }
+        log.info("Creating batch of " + items.size() + " bookings");
+
+        Set<Long> customerIds = items.stream().filter(Objects::nonNull).map(BatchBookingItem::getCustomerId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> commodityIds = items.stream().filter(Objects::nonNull).map(BatchBookingItem::getCommodityId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Customer> customers = customerIds.isEmpty() ? Map.of()
+                : customerService.findCustomersByIds(customerIds).stream()
+                        .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        Map<Long, Commodity> commodities = commodityIds.isEmpty() ? Map.of()
+                : commodityService.findCommoditiesByIds(commodityIds).stream()
+                        .collect(Collectors.toMap(Commodity::getId, Function.identity()));
+        Set<List<Long>> booked = customers.isEmpty() || commodities.isEmpty() ? new HashSet<>()
+                : new HashSet<>(bookingRepository.findExistingPairs(customers.keySet(), commodities.keySet()));
+
+        // Validate each item and group the valid ones by commodity
+        List<BatchBookingResult> results = new ArrayList<>(items.size());
+        Map<Long, List<BatchBookingResult>> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchBookingItem item = items.get(i);
+            Long customerId = item != null ? item.getCustomerId() : null;
+            Long commodityId = item != null ? item.getCommodityId() : null;
+            int seats = item != null && item.getSeats() != null ? item.getSeats() : 1;
+            BatchBookingResult result = new BatchBookingResult(i, customerId, commodityId, seats);
+            results.add(result);
+
+            if (customerId == null || commodityId == null) {
+                result.failed("customerId and commodityId are required");
+            } else if (seats < 1) {
+                result.failed("At least one seat must be booked");
+            } else if (!customers.containsKey(customerId)) {
+                result.failed("Customer with id " + customerId + " not found");
+            } else if (!commodities.containsKey(commodityId)) {
+                result.failed("Commodity with id " + commodityId + " not found");
+            } else if (!booked.add(List.of(customerId, commodityId))) {
+                result.failed("Booking already exists for this customer and commodity");
+            } else {
+                accepted.computeIfAbsent(commodityId, id -> new ArrayList<>()).add(result);
+            }
+        }
+
+        // Take seats once per commodity and share them out in request order; items that no longer
+        // fit are out of stock, and seats nobody could use are given back in one more update
+        List<Booking> bookings = new ArrayList<>();
+        List<BatchBookingResult> created = new ArrayList<>();
+        accepted.forEach((commodityId, group) -> {
+            int requested = group.stream().mapToInt(BatchBookingResult::getSeats).sum();
+            int remaining = commodityService.decreaseQuantityUpTo(commodityId, requested);
+            for (BatchBookingResult result : group) {
+                if (result.getSeats() <= remaining) {
+                    remaining -= result.getSeats();
+                    bookings.add(new Booking(customers.get(result.getCustomerId()), commodities.get(commodityId),
+                            result.getSeats()));
+                    created.add(result);
+                } else {
+                    result.failed("Commodity is out of stock");
+                }
+            }
+            if (remaining > 0) {
+                commodityService.increaseQuantity(commodityId, remaining);
+            }
+        });
+
+        // Sequence ids are assigned on persist, so the inserts can be batched at flush. Pairs were
+        // checked above, so a violation here means a concurrent request booked one of them first
+        try {
+            bookingRepository.persist(bookings);
+            bookingRepository.flush();
+        } catch (PersistenceException e) {
+            if (BookingRepository.isDuplicateBooking(e)) {
+                throw new WebApplicationException("A booking in the batch was created concurrently, please retry",
+                        Response.Status.CONFLICT);
+            }
+            throw e;
+        }
+        for (int i = 0; i < bookings.size(); i++) {
+            created.get(i).created(bookings.get(i).getId());
+        }
+
+        BatchBookingResponse response = new BatchBookingResponse(results);
+        log.info("Batch booking completed: " + response.getSucceeded() + " created, " + response.getFailed() + " failed");
+        return response;
+    }
+
     /**
      * Cancel a booking by ID.
      *
@@ -119,8 +465,8 @@ public class BookingService {
         
         Booking booking = findBookingById(id);
         
-        // Increase commodity quantity back
-        commodityService.increaseQuantity(booking.getCommodity().getId());
+        // Give all of the booked seats back in one update
+        commodityService.increaseQuantity(booking.getCommodity().getId(), booking.getSeats());
         
         // Delete booking
         bookingRepository.delete(booking);
@@ -0,0 +1,132 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.util.KeysetPage;
+import uk.ac.newcastle.enterprisemiddleware.util.TransactionHooks;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Versioned, pre-serialized pages of the commodity catalog for the polled list endpoints.
+ *
+ * The catalog version is bumped once by every commodity change, after its transaction commits.
+ * A page records the version read before loading it, so a page loaded before the commit is
+ * rebuilt on the next request. A page is serialized once per version and kept as bytes until the
+ * version moves on. Its ETag is a hash of those bytes and its next cursor, so a change elsewhere
+ * in the catalog rebuilds the page but leaves its tag, and clients only refetch a page whose
+ * content changed.
+ */
+@ApplicationScoped
+public class CatalogSnapshot {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    TransactionHooks transactionHooks;
+
+    @ConfigProperty(name = "booking.catalog.snapshot.max-pages", defaultValue = "1000")
+    long maxPages;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private Cache<String, Page> pages;
+
+    void onStart(@Observes StartupEvent event) {
+        pages = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .build();
+    }
+
+    /**
+     * Get a serialized catalog page, building it only if the catalog changed since it was last built.
+     *
+     * @param key    identifies the page, e.g. the endpoint and its query parameters
+     * @param loader reads the page from the database
+     * @return the page as of the returned version
+     */
+    public Page page(String key, Supplier<KeysetPage<?>> loader) {
+        long current = version.get();
+        Page page = pages.getIfPresent(key);
+        if (page != null && page.getVersion() == current) {
+            return page;
+        }
+        KeysetPage<?> rows = loader.get();
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(rows.getItems());
+            page = new Page(current, body, rows.getNext(), tag(body, rows.getNext()));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        pages.put(key, page);
+        return page;
+    }
+
+    /**
+     * Record that a commodity changed, once the current transaction commits.
+     */
+    public void changed() {
+        transactionHooks.afterCommit(version::incrementAndGet);
+    }
+
+    private static String tag(byte[] body, Long next) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(body);
+            digest.update(String.valueOf(next).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot tag catalog page", e);
+        }
+    }
+
+    /**
+     * An immutable serialized catalog page.
+     */
+    public static class Page {
+
+        private final long version;
+        private final byte[] body;
+        private final Long next;
+        private final String tag;
+
+        // Constructors
+        Page(long version, byte[] body, Long next, String tag) {
+            this.version = version;
+            this.body = body;
+            this.next = next;
+            this.tag = tag;
+        }
+
+        // Getters and Setters
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public Long getNext() {
+            return next;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+}
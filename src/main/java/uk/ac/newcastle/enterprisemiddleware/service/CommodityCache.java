@@ -0,0 +1,115 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManagerFactory;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.repository.CommodityRepository;
+import uk.ac.newcastle.enterprisemiddleware.util.TransactionHooks;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded read cache of commodities by ID, for display reads such as {@code GET /commodities/{id}}.
+ *
+ * Entries are detached copies, evicted by size and by age. Every change to a commodity, including
+ * each inventory change, invalidates its entry both immediately and again once the transaction
+ * completes, so a reader cannot put a value from before the commit back into the cache. Anything
+ * that decides inventory reads the database (or the ledger) and never this cache.
+ *
+ * Invalidation also evicts the commodity from the Hibernate second-level cache. Quantity changes
+ * are bulk updates, and a transaction that reads the commodity after one would otherwise leave
+ * its uncommitted quantity in that cache if it rolls back.
+ *
+ * Hit, miss, eviction and size metrics are published under the cache name {@code commodities},
+ * with the hit ratio as {@code booking.commodity.cache.hit.ratio}.
+ */
+@ApplicationScoped
+public class CommodityCache {
+
+    @Inject
+    CommodityRepository commodityRepository;
+
+    @Inject
+    EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    TransactionHooks transactionHooks;
+
+    @ConfigProperty(name = "booking.commodity.cache.max-size", defaultValue = "10000")
+    long maxSize;
+
+    @ConfigProperty(name = "booking.commodity.cache.ttl", defaultValue = "30s")
+    Duration ttl;
+
+    private Cache<Long, Commodity> commodities;
+
+    void onStart(@Observes StartupEvent event) {
+        commodities = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, commodities, "commodities");
+        Gauge.builder("booking.commodity.cache.hit.ratio", commodities, cache -> cache.stats().hitRate())
+                .register(registry);
+    }
+
+    /**
+     * Get a commodity, loading it from the database on a miss.
+     *
+     * @param id the commodity ID
+     * @return Optional containing a detached copy of the commodity if found
+     */
+    public Optional<Commodity> get(Long id) {
+        return Optional.ofNullable(commodities.get(id, key -> {
+            Commodity commodity = commodityRepository.findById(key);
+            return commodity != null ? copy(commodity) : null;
+        }));
+    }
+
+    /**
+     * Drop a commodity from the cache now and when the current transaction completes.
+     *
+     * @param id the commodity ID
+     */
+    public void invalidate(Long id) {
+        Runnable evict = () -> {
+            commodities.invalidate(id);
+            entityManagerFactory.getCache().evict(Commodity.class, id);
+        };
+        evict.run();
+        transactionHooks.afterCompletion(committed -> evict.run());
+    }
+
+    /**
+     * Drop every commodity from the cache now and when the current transaction completes.
+     */
+    public void invalidateAll() {
+        Runnable evict = () -> {
+            commodities.invalidateAll();
+            entityManagerFactory.getCache().evict(Commodity.class);
+        };
+        evict.run();
+        transactionHooks.afterCompletion(committed -> evict.run());
+    }
+
+    private static Commodity copy(Commodity commodity) {
+        Commodity copy = new Commodity(commodity.getName(), commodity.getDescription(), commodity.getPrice(),
+                commodity.getQuantity());
+        copy.setId(commodity.getId());
+        return copy;
+    }
+}
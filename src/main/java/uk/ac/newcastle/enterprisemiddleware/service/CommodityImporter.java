@@ -0,0 +1,237 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.StatelessSession;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.ImportError;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.CommodityImportResponse;
+import uk.ac.newcastle.enterprisemiddleware.util.CsvReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of commodities from a streamed CSV or NDJSON body.
+ *
+ * Rows are parsed one at a time and checked with the Commodity Bean Validation constraints. Valid
+ * rows are inserted through a stateless session in transactions of
+ * {@code booking.import.chunk-size} rows, so neither the request nor the imported entities are
+ * held in memory. A row that cannot be parsed or validated is reported and skipped; if a chunk
+ * fails to insert, all of its rows are reported and the chunks before it stay imported.
+ */
+@ApplicationScoped
+public class CommodityImporter {
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "price", "quantity");
+
+    @Inject
+    Logger log;
+
+    @Inject
+    StatelessSession statelessSession;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    InventoryLedger inventoryLedger;
+
+    @Inject
+    CommoditySearchIndex searchIndex;
+
+    @Inject
+    CatalogSnapshot catalogSnapshot;
+
+    @ConfigProperty(name = "booking.import.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @ConfigProperty(name = "booking.import.max-errors", defaultValue = "1000")
+    int maxErrors;
+
+    /**
+     * Import commodities from CSV with a header row naming the name, description, price and
+     * quantity columns, in any order.
+     *
+     * @param body the CSV input
+     * @return the number of rows imported and the rows that failed
+     * @throws WebApplicationException if the header is missing a column
+     */
+    public CommodityImportResponse importCsv(InputStream body) {
+        Import result = new Import();
+        try {
+            CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+            Map<String, Integer> columns = csvColumns(reader.readHeader());
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                long row = result.nextRow();
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                try {
+                    result.add(row, csvCommodity(fields, columns));
+                } catch (IllegalArgumentException e) {
+                    result.fail(row, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            result.abort("Could not read CSV: " + e.getMessage());
+        }
+        return result.finish();
+    }
+
+    /**
+     * Import commodities from newline-delimited JSON, one commodity object per line.
+     *
+     * @param body the NDJSON input
+     * @return the number of rows imported and the rows that failed
+     */
+    public CommodityImportResponse importNdjson(InputStream body) {
+        Import result = new Import();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long row = result.nextRow();
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Commodity commodity = objectMapper.readValue(line, Commodity.class);
+                    commodity.setId(null);
+                    result.add(row, commodity);
+                } catch (JsonProcessingException e) {
+                    result.fail(row, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+        } catch (IOException e) {
+            result.abort("Could not read NDJSON: " + e.getMessage());
+        }
+        return result.finish();
+    }
+
+    private static Map<String, Integer> csvColumns(Map<String, Integer> columns) {
+        if (columns == null || !columns.keySet().containsAll(CSV_COLUMNS)) {
+            throw new WebApplicationException("CSV header must include the columns " + CSV_COLUMNS,
+                    Response.Status.BAD_REQUEST);
+        }
+        return columns;
+    }
+
+    private static Commodity csvCommodity(List<String> fields, Map<String, Integer> columns) {
+        Commodity commodity = new Commodity();
+        commodity.setName(CsvReader.field(fields, columns, "name"));
+        commodity.setDescription(CsvReader.field(fields, columns, "description"));
+        commodity.setPrice(parse(CsvReader.field(fields, columns, "price"), "price", Double::valueOf));
+        commodity.setQuantity(parse(CsvReader.field(fields, columns, "quantity"), "quantity", Integer::valueOf));
+        return commodity;
+    }
+
+    private static <T> T parse(String value, String column, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + ": '" + value + "' is not a number");
+        }
+    }
+
+    /**
+     * The state of one import: the chunk being filled and the report so far.
+     */
+    private class Import {
+
+        private final CommodityImportResponse response = new CommodityImportResponse();
+        private final List<Commodity> chunk = new ArrayList<>();
+        private final List<Long> chunkRows = new ArrayList<>();
+        private long rows;
+
+        long nextRow() {
+            return ++rows;
+        }
+
+        void add(long row, Commodity commodity) {
+            Set<ConstraintViolation<Commodity>> violations = validator.validate(commodity);
+            if (!violations.isEmpty()) {
+                fail(row, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            chunk.add(commodity);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void fail(long row, String message) {
+            response.setFailed(response.getFailed() + 1);
+            if (response.getErrors().size() < maxErrors) {
+                response.getErrors().add(new ImportError(row, message));
+            }
+        }
+
+        void abort(String message) {
+            flush();
+            fail(rows + 1, message);
+        }
+
+        CommodityImportResponse finish() {
+            flush();
+            log.info("Imported " + response.getImported() + " commodities, " + response.getFailed() + " rows failed");
+            return response;
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                QuarkusTransaction.requiringNew().run(() -> insert(chunk));
+                response.setImported(response.getImported() + chunk.size());
+            } catch (RuntimeException e) {
+                log.warning("Import of rows " + chunkRows.get(0) + " to " + chunkRows.get(chunkRows.size() - 1)
+                        + " failed: " + e.getMessage());
+                chunkRows.forEach(row -> fail(row, "Insert failed: " + e.getMessage()));
+            }
+            chunk.clear();
+            chunkRows.clear();
+        }
+    }
+
+    private void insert(List<Commodity> commodities) {
+        statelessSession.setJdbcBatchSize(chunkSize);
+        commodities.forEach(statelessSession::insert);
+        // Ledger checkpoints and the search index only change if the chunk commits
+        commodities.forEach(commodity -> {
+            inventoryLedger.track(commodity);
+            searchIndex.put(commodity);
+        });
+        catalogSnapshot.changed();
+    }
+}
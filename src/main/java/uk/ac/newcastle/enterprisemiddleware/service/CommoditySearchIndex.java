@@ -0,0 +1,302 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.repository.CommodityRepository;
+import uk.ac.newcastle.enterprisemiddleware.util.TransactionHooks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.logging.Logger;
+
+/**
+ * In-memory trigram index over commodity names and descriptions, for {@code GET /commodities/search}.
+ *
+ * Text is lower-cased, runs of other characters are collapsed to a single space, and each word
+ * boundary is padded so that short prefixes still match. A commodity matches when at least
+ * {@code booking.search.min-similarity} of the query's trigrams occur in its name or in its
+ * description; results are ranked by trigram hits, counting name hits double.
+ *
+ * A search only walks the posting lists of the query's rarest trigrams: a commodity that reaches
+ * the required share must contain at least one of the {@code grams - required + 1} rarest, so the
+ * candidates come from all of those lists and each candidate's own trigrams are then merged with
+ * the query's. When those lists together are longer than the catalog, every commodity is checked
+ * instead, so a query made of common trigrams costs time in proportion to the catalog; either
+ * way no match is missed. The best {@code limit} candidates are kept in a bounded heap. Queries
+ * shorter than a trigram match word prefixes, from sorted prefix lists, so they cost about
+ * {@code limit} steps.
+ *
+ * The index is loaded at startup and changed by {@link CommodityService} when a create, update
+ * or delete commits. It holds only IDs and text, so quantities and prices are read from the
+ * database for the returned page.
+ */
+@ApplicationScoped
+public class CommoditySearchIndex {
+
+    private static final int GRAM = 3;
+
+    @Inject
+    Logger log;
+
+    @Inject
+    CommodityRepository commodityRepository;
+
+    @Inject
+    TransactionHooks transactionHooks;
+
+    @ConfigProperty(name = "booking.search.min-similarity", defaultValue = "0.5")
+    double minSimilarity;
+
+    private final ConcurrentMap<Long, Document> documents = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> namePostings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> descriptionPostings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<Long>> namePrefixes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<Long>> descriptionPrefixes = new ConcurrentHashMap<>();
+
+    /**
+     * Index every commodity in the database.
+     */
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        commodityRepository.streamAll().forEach(this::index);
+        log.info("Search index loaded " + documents.size() + " commodities");
+    }
+
+    /**
+     * Index a created or updated commodity once the surrounding transaction commits.
+     *
+     * @param commodity the commodity
+     */
+    public void put(Commodity commodity) {
+        Long id = commodity.getId();
+        String name = commodity.getName();
+        String description = commodity.getDescription();
+        transactionHooks.afterCommit(() -> index(id, name, description));
+    }
+
+    /**
+     * Remove a deleted commodity once the surrounding transaction commits.
+     *
+     * @param id the commodity ID
+     */
+    public void remove(Long id) {
+        transactionHooks.afterCommit(() -> unindex(id));
+    }
+
+    /**
+     * Find the commodities that best match a query.
+     *
+     * @param query the search text
+     * @param limit the maximum number of IDs to return
+     * @return matching commodity IDs, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        String text = normalize(query);
+        if (text.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        if (text.length() < GRAM) {
+            return prefixSearch(text, limit);
+        }
+        List<String> grams = new ArrayList<>(grams(text, false));
+        grams.sort(Comparator.comparingInt(this::frequency));
+        int required = (int) Math.ceil(grams.size() * minSimilarity);
+        long[] codes = codes(grams);
+
+        // Every match contains one of these; if their lists outweigh the catalog, check every commodity
+        List<String> selective = grams.subList(0, Math.min(grams.size(), grams.size() - required + 1));
+        long postings = selective.stream().mapToLong(this::frequency).sum();
+        Collection<Document> candidates;
+        if (postings > documents.size()) {
+            candidates = documents.values();
+        } else {
+            Set<Long> ids = new HashSet<>();
+            for (String gram : selective) {
+                addUpTo(ids, namePostings.get(gram), Integer.MAX_VALUE);
+                addUpTo(ids, descriptionPostings.get(gram), Integer.MAX_VALUE);
+            }
+            candidates = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Document document = documents.get(id);
+                if (document != null) {
+                    candidates.add(document);
+                }
+            }
+        }
+
+        // Lowest score, then highest ID, at the head so it is the first to make way
+        PriorityQueue<long[]> best = new PriorityQueue<>(limit + 1, Comparator.<long[]>comparingLong(hit -> hit[1])
+                .thenComparingLong(hit -> -hit[0]));
+        for (Document document : candidates) {
+            int nameHits = common(codes, document.nameGrams);
+            int descriptionHits = common(codes, document.descriptionGrams);
+            if (Math.max(nameHits, descriptionHits) < required) {
+                continue;
+            }
+            long score = 2L * nameHits + descriptionHits;
+            long[] worst = best.size() < limit ? null : best.peek();
+            if (worst == null || score > worst[1] || score == worst[1] && document.id < worst[0]) {
+                best.add(new long[]{document.id, score});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        Long[] ranked = new Long[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = best.poll()[0];
+        }
+        return List.of(ranked);
+    }
+
+    /**
+     * Commodities with a word starting with the text, name matches first, each in ID order.
+     */
+    private List<Long> prefixSearch(String text, int limit) {
+        Set<Long> ids = new LinkedHashSet<>();
+        addUpTo(ids, namePrefixes.get(text), limit);
+        addUpTo(ids, descriptionPrefixes.get(text), limit);
+        return List.copyOf(ids);
+    }
+
+    /**
+     * Count the values two sorted arrays have in common.
+     */
+    private static int common(long[] a, long[] b) {
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The trigrams packed into longs, sorted, so a candidate is checked by merging two arrays.
+     */
+    private static long[] codes(Collection<String> grams) {
+        return grams.stream()
+                .mapToLong(gram -> (long) gram.charAt(0) << 32 | (long) gram.charAt(1) << 16 | gram.charAt(2))
+                .sorted()
+                .toArray();
+    }
+
+    private int frequency(String gram) {
+        return namePostings.getOrDefault(gram, Set.of()).size() + descriptionPostings.getOrDefault(gram, Set.of()).size();
+    }
+
+    private static void addUpTo(Set<Long> target, Set<Long> ids, int size) {
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            if (target.size() >= size) {
+                return;
+            }
+            target.add(id);
+        }
+    }
+
+    private void index(Commodity commodity) {
+        index(commodity.getId(), commodity.getName(), commodity.getDescription());
+    }
+
+    synchronized void index(Long id, String name, String description) {
+        unindex(id);
+        Document document = new Document(id, normalize(name), normalize(description));
+        documents.put(id, document);
+        grams(document.name, true).forEach(gram -> namePostings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id));
+        grams(document.description, true).forEach(gram -> descriptionPostings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id));
+        prefixes(document.name).forEach(prefix -> namePrefixes.computeIfAbsent(prefix, key -> new ConcurrentSkipListSet<>()).add(id));
+        prefixes(document.description).forEach(prefix -> descriptionPrefixes.computeIfAbsent(prefix, key -> new ConcurrentSkipListSet<>()).add(id));
+    }
+
+    private synchronized void unindex(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        grams(document.name, true).forEach(gram -> removePosting(namePostings, gram, id));
+        grams(document.description, true).forEach(gram -> removePosting(descriptionPostings, gram, id));
+        prefixes(document.name).forEach(prefix -> removePosting(namePrefixes, prefix, id));
+        prefixes(document.description).forEach(prefix -> removePosting(descriptionPrefixes, prefix, id));
+    }
+
+    private static <S extends Set<Long>> void removePosting(ConcurrentMap<String, S> postings, String gram, Long id) {
+        postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static Set<String> grams(String text, boolean padded) {
+        String padding = padded ? " " : "";
+        String source = padding + text + padding;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= source.length(); i++) {
+            grams.add(source.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * The word prefixes shorter than a trigram, which answer short queries.
+     */
+    private static Set<String> prefixes(String text) {
+        Set<String> prefixes = new HashSet<>();
+        for (String word : text.split(" ")) {
+            for (int length = 1; length < GRAM && length <= word.length(); length++) {
+                prefixes.add(word.substring(0, length));
+            }
+        }
+        return prefixes;
+    }
+
+    private static final class Document {
+
+        private final long id;
+        private final String name;
+        private final String description;
+        // The indexed trigrams, to check a candidate without the postings
+        private final long[] nameGrams;
+        private final long[] descriptionGrams;
+
+        private Document(long id, String name, String description) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.nameGrams = codes(grams(name, true));
+            this.descriptionGrams = codes(grams(description, true));
+        }
+    }
+}
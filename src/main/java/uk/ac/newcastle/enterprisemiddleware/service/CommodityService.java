@@ -7,9 +7,16 @@ import jakarta.validation.Valid;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.repository.BookingRepository;
 import uk.ac.newcastle.enterprisemiddleware.repository.CommodityRepository;
+import uk.ac.newcastle.enterprisemiddleware.repository.SeatHoldRepository;
+import uk.ac.newcastle.enterprisemiddleware.util.KeysetPage;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
@@ -24,14 +31,34 @@ public class CommodityService {
     @Inject
     CommodityRepository commodityRepository;
 
+    @Inject
+    SeatHoldRepository seatHoldRepository;
+
+    @Inject
+    InventoryLedger inventoryLedger;
+
+    @Inject
+    BookingRepository bookingRepository;
+
+    @Inject
+    CommodityCache commodityCache;
+
+    @Inject
+    CatalogSnapshot catalogSnapshot;
+
+    @Inject
+    CommoditySearchIndex searchIndex;
+
     /**
-     * Get all commodities.
+     * Get a page of commodities in id order.
      *
-     * @return list of all commodities
+     * @param after the last commodity ID of the previous page, or null for the first page
+     * @param limit the page size
+     * @return the page of commodities
      */
-    public List<Commodity> findAllCommodities() {
-        log.info("Finding all commodities");
-        return commodityRepository.listAll();
+    public KeysetPage<Commodity> findCommodities(Long after, int limit) {
+        log.info("Finding " + limit + " commodities after id " + after);
+        return KeysetPage.of(commodityRepository.findPage(after, limit + 1), limit, Commodity::getId);
     }
 
     /**
@@ -51,13 +78,63 @@ public class CommodityService {
     }
 
     /**
-     * Get all available commodities (quantity > 0).
+     * Get a commodity by ID from the read cache, for display. Inventory decisions and updates must
+     * use {@link #findCommodityById(Long)}, which always reads the database.
+     *
+     * @param id the commodity ID
+     * @return a copy of the commodity, at most one cache TTL old if changed outside this service
+     * @throws WebApplicationException if commodity not found
+     */
+    public Commodity findCommodityByIdCached(Long id) {
+        return commodityCache.get(id)
+                .orElseThrow(() -> new WebApplicationException("Commodity with id " + id + " not found",
+                        Response.Status.NOT_FOUND));
+    }
+
+    /**
+     * Get all commodities with the given IDs in a single query.
      *
-     * @return list of available commodities
+     * @param ids the commodity IDs
+     * @return list of commodities found; missing IDs are skipped
      */
-    public List<Commodity> findAvailableCommodities() {
-        log.info("Finding available commodities");
-        return commodityRepository.findAvailableCommodities();
+    public List<Commodity> findCommoditiesByIds(Collection<Long> ids) {
+        log.info("Finding " + ids.size() + " commodities by id");
+        return commodityRepository.findByIds(ids);
+    }
+
+    /**
+     * Search commodity names and descriptions using the in-memory trigram index.
+     *
+     * @param query the search text
+     * @param limit the maximum number of commodities to return
+     * @return matching commodities, best match first
+     */
+    public List<Commodity> searchCommodities(String query, int limit) {
+        log.info("Searching " + limit + " commodities for: " + query);
+        List<Long> ids = searchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        // Results of a commodity deleted since it was found are skipped
+        return commodityRepository.findByIds(ids).stream()
+                .sorted(Comparator.comparingInt(commodity -> rank.get(commodity.getId())))
+                .toList();
+    }
+
+    /**
+     * Get a page of available commodities (quantity > 0) in id order.
+     *
+     * @param after the last commodity ID of the previous page, or null for the first page
+     * @param limit the page size
+     * @return the page of available commodities
+     */
+    public KeysetPage<Commodity> findAvailableCommodities(Long after, int limit) {
+        log.info("Finding " + limit + " available commodities after id " + after);
+        return KeysetPage.of(commodityRepository.findAvailableCommodities(after, limit + 1), limit, Commodity::getId);
     }
 
     /**
@@ -70,6 +147,9 @@ public class CommodityService {
     public Commodity createCommodity(@Valid Commodity commodity) {
         log.info("Creating commodity: " + commodity.getName());
         commodityRepository.persist(commodity);
+        inventoryLedger.track(commodity);
+        searchIndex.put(commodity);
+        catalogSnapshot.changed();
         return commodity;
     }
 
@@ -90,14 +170,18 @@ public class CommodityService {
         existingCommodity.setName(commodity.getName());
         existingCommodity.setDescription(commodity.getDescription());
         existingCommodity.setPrice(commodity.getPrice());
+        inventoryLedger.reset(id, existingCommodity.getQuantity(), commodity.getQuantity());
         existingCommodity.setQuantity(commodity.getQuantity());
+        searchIndex.put(existingCommodity);
+        commodityCache.invalidate(id);
+        catalogSnapshot.changed();
         
         return existingCommodity;
     }
 
     /**
      * Delete a commodity by ID.
-     * This will cascade delete all bookings associated with this commodity.
+     * All bookings and seat holds on the commodity are deleted with it.
      *
      * @param id the commodity ID
      * @throws WebApplicationException if commodity not found
@@ -107,35 +191,129 @@ public class CommodityService {
         log.info("Deleting commodity with id: " + id);
         
         Commodity commodity = findCommodityById(id);
+        seatHoldRepository.deleteByCommodityId(id);
+        long bookings = bookingRepository.deleteByCommodityId(id);
         commodityRepository.delete(commodity);
+        inventoryLedger.forget(id);
+        searchIndex.remove(id);
+        commodityCache.invalidate(id);
+        catalogSnapshot.changed();
         
-        log.info("Commodity deleted successfully. Associated bookings were also deleted due to cascade.");
+        log.info("Commodity deleted successfully along with " + bookings + " bookings");
     }
 
     /**
-     * Decrease commodity quantity (used when creating a booking).
+     * Decrease commodity quantity by one seat (used when creating a booking).
      *
      * @param id the commodity ID
-     * @throws WebApplicationException if not enough quantity available
+     * @throws WebApplicationException if commodity not found or not enough quantity available
      */
     @Transactional
     public void decreaseQuantity(Long id) {
-        Commodity commodity = findCommodityById(id);
-        if (commodity.getQuantity() <= 0) {
+        decreaseQuantity(id, 1);
+    }
+
+    /**
+     * Decrease commodity quantity (used when creating a booking or placing a seat hold).
+     * The stock check and the decrement are a single conditional UPDATE, so this is safe
+     * under concurrent bookings without locking the row for the whole transaction.
+     * When the inventory ledger is enabled the seats are taken from memory instead.
+     *
+     * @param id    the commodity ID
+     * @param seats the number of seats to take
+     * @throws WebApplicationException if commodity not found or not enough quantity available
+     */
+    @Transactional
+    public void decreaseQuantity(Long id, int seats) {
+        boolean taken = inventoryLedger.isEnabled()
+                ? inventoryLedger.take(id, seats)
+                : commodityRepository.decrementQuantity(id, seats);
+        if (!taken) {
+            // No seats taken: either the commodity does not exist or it is sold out
+            findCommodityById(id);
             throw new WebApplicationException("Commodity is out of stock", Response.Status.BAD_REQUEST);
         }
-        commodity.setQuantity(commodity.getQuantity() - 1);
+        commodityCache.invalidate(id);
+        catalogSnapshot.changed();
     }
 
     /**
-     * Increase commodity quantity (used when canceling a booking).
+     * Take as many seats as are available, up to the requested number (used for batch bookings).
+     *
+     * @param id    the commodity ID
+     * @param seats the maximum number of seats to take
+     * @return the number of seats taken, zero if sold out or the commodity does not exist
+     */
+    @Transactional
+    public int decreaseQuantityUpTo(Long id, int seats) {
+        int taken = inventoryLedger.isEnabled() ? inventoryLedger.takeUpTo(id, seats) : takeUpTo(id, seats);
+        if (taken > 0) {
+            commodityCache.invalidate(id);
+            catalogSnapshot.changed();
+        }
+        return taken;
+    }
+
+    private int takeUpTo(Long id, int seats) {
+        while (true) {
+            Integer available = commodityRepository.findQuantity(id);
+            if (available == null || available <= 0) {
+                return 0;
+            }
+            int wanted = Math.min(seats, available);
+            // Retry if another transaction took seats between the read and the update
+            if (commodityRepository.decrementQuantity(id, wanted)) {
+                return wanted;
+            }
+        }
+    }
+
+    /**
+     * Increase commodity quantity by one seat (used when canceling a booking).
      *
      * @param id the commodity ID
+     * @throws WebApplicationException if commodity not found
      */
     @Transactional
     public void increaseQuantity(Long id) {
-        Commodity commodity = findCommodityById(id);
-        commodity.setQuantity(commodity.getQuantity() + 1);
+        increaseQuantity(id, 1);
     }
-}
 
+    /**
+     * Increase commodity quantity (used when canceling a booking or releasing a seat hold).
+     *
+     * @param id    the commodity ID
+     * @param seats the number of seats to return
+     * @throws WebApplicationException if commodity not found
+     */
+    @Transactional
+    public void increaseQuantity(Long id, int seats) {
+        boolean released = inventoryLedger.isEnabled()
+                ? inventoryLedger.release(id, seats)
+                : commodityRepository.incrementQuantity(id, seats);
+        if (!released) {
+            throw new WebApplicationException("Commodity with id " + id + " not found", Response.Status.NOT_FOUND);
+        }
+        commodityCache.invalidate(id);
+        catalogSnapshot.changed();
+    }
+
+    /**
+     * Give back every seat booked by a customer, before their bookings are deleted.
+     * Without the ledger this is a single update grouped by commodity; with it, the seats are
+     * released to the ledger counters and written back with the next flush.
+     *
+     * @param customerId the customer ID
+     */
+    @Transactional
+    public void releaseSeatsOfCustomer(Long customerId) {
+        if (inventoryLedger.isEnabled()) {
+            bookingRepository.sumSeatsByCommodityForCustomer(customerId)
+                    .forEach((id, seats) -> inventoryLedger.release(id, seats.intValue()));
+        } else {
+            commodityRepository.restoreSeatsOfCustomer(customerId);
+        }
+        commodityCache.invalidateAll();
+        catalogSnapshot.changed();
+    }
+}
@@ -0,0 +1,136 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManagerFactory;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.entity.Customer;
+import uk.ac.newcastle.enterprisemiddleware.repository.CustomerRepository;
+import uk.ac.newcastle.enterprisemiddleware.util.TransactionHooks;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded lookup cache of customers, keyed both by ID and by email.
+ *
+ * The ID cache holds detached copies and serves the customer lookup on the booking path; the email
+ * cache maps an email to the ID of the customer using it, so repeated email conflicts are answered
+ * without a query. Only emails known to be in use are cached: a miss always asks the database, and
+ * the unique email index remains the final check.
+ *
+ * Creating, updating or deleting a customer invalidates its entries immediately and again once the
+ * transaction completes, so an uncommitted or rolled back customer never outlives its transaction
+ * in the cache. It also evicts the customer from the Hibernate second-level cache, which bulk
+ * imports bypass by writing through a stateless session. Metrics are published under the cache names {@code customers} and
+ * {@code customer-emails}. Setting {@code booking.customer.cache.enabled=false} sends every lookup
+ * to the database, for comparison.
+ */
+@ApplicationScoped
+public class CustomerCache {
+
+    @Inject
+    CustomerRepository customerRepository;
+
+    @Inject
+    EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    TransactionHooks transactionHooks;
+
+    @ConfigProperty(name = "booking.customer.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "booking.customer.cache.max-size", defaultValue = "10000")
+    long maxSize;
+
+    @ConfigProperty(name = "booking.customer.cache.ttl", defaultValue = "5m")
+    Duration ttl;
+
+    private Cache<Long, Customer> customers;
+    private Cache<String, Long> idsByEmail;
+
+    void onStart(@Observes StartupEvent event) {
+        customers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, customers, "customers");
+        CaffeineCacheMetrics.monitor(registry, idsByEmail, "customer-emails");
+    }
+
+    /**
+     * Get a customer, loading it from the database on a miss.
+     *
+     * @param id the customer ID
+     * @return Optional containing a detached copy of the customer if found
+     */
+    public Optional<Customer> get(Long id) {
+        if (!enabled) {
+            return Optional.ofNullable(customerRepository.findById(id)).map(CustomerCache::copy);
+        }
+        return Optional.ofNullable(customers.get(id, key -> {
+            Customer customer = customerRepository.findById(key);
+            if (customer == null) {
+                return null;
+            }
+            idsByEmail.put(customer.getEmail(), customer.getId());
+            return copy(customer);
+        }));
+    }
+
+    /**
+     * Check whether a customer already uses an email address.
+     *
+     * @param email the email address
+     * @return true if a customer with the email exists
+     */
+    public boolean isEmailInUse(String email) {
+        if (enabled && idsByEmail.getIfPresent(email) != null) {
+            return true;
+        }
+        Optional<Customer> customer = customerRepository.findByEmail(email);
+        if (enabled) {
+            customer.ifPresent(found -> idsByEmail.put(email, found.getId()));
+        }
+        return customer.isPresent();
+    }
+
+    /**
+     * Drop a customer and its email from the cache now and when the current transaction completes.
+     *
+     * @param id    the customer ID
+     * @param email the customer's email address
+     */
+    public void invalidate(Long id, String email) {
+        Runnable evict = () -> {
+            customers.invalidate(id);
+            idsByEmail.invalidate(email);
+            entityManagerFactory.getCache().evict(Customer.class, id);
+        };
+        evict.run();
+        transactionHooks.afterCompletion(committed -> evict.run());
+    }
+
+    private static Customer copy(Customer customer) {
+        Customer copy = new Customer(customer.getFirstName(), customer.getLastName(), customer.getEmail(),
+                customer.getPhoneNumber());
+        copy.setId(customer.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,288 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.StatelessSession;
+import uk.ac.newcastle.enterprisemiddleware.entity.Customer;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.CustomerImportResponse;
+import uk.ac.newcastle.enterprisemiddleware.rest.dto.ImportError;
+import uk.ac.newcastle.enterprisemiddleware.util.CsvReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk upsert of customers from a streamed CSV or NDJSON body, keyed by email.
+ *
+ * Rows are parsed one at a time and checked with the Customer Bean Validation constraints. Each
+ * chunk of {@code booking.import.chunk-size} valid rows is upserted in its own transaction: the
+ * customers already using the chunk's emails are read with a single {@code IN} query, changed
+ * ones are updated and new ones inserted, all through a stateless session with JDBC batching.
+ * Within a chunk a later row for the same email replaces an earlier one, which is then counted as
+ * a duplicate rather than as an update.
+ *
+ * If a chunk cannot be written the import stops and reports the checkpoint up to which rows are
+ * committed or rejected; since an upsert can be repeated safely, the same input can be sent again
+ * with that offset.
+ */
+@ApplicationScoped
+public class CustomerImporter {
+
+    private static final List<String> CSV_COLUMNS = List.of("firstname", "lastname", "email", "phonenumber");
+
+    @Inject
+    Logger log;
+
+    @Inject
+    StatelessSession statelessSession;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    CustomerCache customerCache;
+
+    @ConfigProperty(name = "booking.import.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @ConfigProperty(name = "booking.import.max-errors", defaultValue = "1000")
+    int maxErrors;
+
+    /**
+     * Upsert customers from CSV with a header row naming the firstName, lastName, email and
+     * phoneNumber columns, in any order.
+     *
+     * @param body   the CSV input
+     * @param offset the number of rows to skip, from the checkpoint of an earlier import
+     * @return the inserted, updated, unchanged and rejected counts and the checkpoint
+     * @throws WebApplicationException if the header is missing a column
+     */
+    public CustomerImportResponse importCsv(InputStream body, long offset) {
+        Import result = new Import(offset);
+        try {
+            CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+            Map<String, Integer> columns = reader.readHeader();
+            if (columns == null || !columns.keySet().containsAll(CSV_COLUMNS)) {
+                throw new WebApplicationException("CSV header must include the columns " + CSV_COLUMNS,
+                        Response.Status.BAD_REQUEST);
+            }
+            List<String> fields;
+            while (!result.isStopped() && (fields = reader.next()) != null) {
+                long row = result.nextRow();
+                if (result.isSkipped(row) || (fields.size() == 1 && fields.get(0).isBlank())) {
+                    continue;
+                }
+                try {
+                    result.add(row, new Customer(CsvReader.field(fields, columns, "firstname"),
+                            CsvReader.field(fields, columns, "lastname"),
+                            CsvReader.field(fields, columns, "email"),
+                            CsvReader.field(fields, columns, "phonenumber")));
+                } catch (IllegalArgumentException e) {
+                    result.reject(row, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            result.stop("Could not read CSV: " + e.getMessage());
+        }
+        return result.finish();
+    }
+
+    /**
+     * Upsert customers from newline-delimited JSON, one customer object per line.
+     *
+     * @param body   the NDJSON input
+     * @param offset the number of rows to skip, from the checkpoint of an earlier import
+     * @return the inserted, updated, unchanged and rejected counts and the checkpoint
+     */
+    public CustomerImportResponse importNdjson(InputStream body, long offset) {
+        Import result = new Import(offset);
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
+            while (!result.isStopped() && (line = reader.readLine()) != null) {
+                long row = result.nextRow();
+                if (result.isSkipped(row) || line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Customer customer = objectMapper.readValue(line, Customer.class);
+                    customer.setId(null);
+                    result.add(row, customer);
+                } catch (JsonProcessingException e) {
+                    result.reject(row, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+        } catch (IOException e) {
+            result.stop("Could not read NDJSON: " + e.getMessage());
+        }
+        return result.finish();
+    }
+
+    /**
+     * The state of one import: the chunk being filled and the report so far.
+     */
+    private class Import {
+
+        private final CustomerImportResponse response = new CustomerImportResponse();
+        private final Map<String, Customer> chunk = new LinkedHashMap<>();
+        private final long offset;
+        private long rows;
+        private long duplicates;
+        private boolean stopped;
+
+        Import(long offset) {
+            this.offset = offset;
+        }
+
+        long nextRow() {
+            return ++rows;
+        }
+
+        boolean isSkipped(long row) {
+            if (row <= offset) {
+                response.setCheckpoint(row);
+                return true;
+            }
+            return false;
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+
+        void add(long row, Customer customer) {
+            Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+            if (!violations.isEmpty()) {
+                reject(row, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            if (chunk.put(customer.getEmail(), customer) != null) {
+                duplicates++;
+            }
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String message) {
+            response.setRejected(response.getRejected() + 1);
+            error(row, message);
+            if (chunk.isEmpty()) {
+                response.setCheckpoint(row);
+            }
+        }
+
+        void stop(String message) {
+            if (!stopped) {
+                flush();
+            }
+            if (!stopped) {
+                stopped = true;
+                error(response.getCheckpoint() + 1, message);
+            }
+        }
+
+        CustomerImportResponse finish() {
+            if (!stopped) {
+                flush();
+            }
+            response.setComplete(!stopped);
+            log.info("Customer import " + (stopped ? "stopped" : "finished") + " at row " + response.getCheckpoint()
+                    + ": " + response.getInserted() + " inserted, " + response.getUpdated() + " updated, "
+                    + response.getDuplicates() + " duplicates, " + response.getRejected() + " rejected");
+            return response;
+        }
+
+        private void error(long row, String message) {
+            if (response.getErrors().size() < maxErrors) {
+                response.getErrors().add(new ImportError(row, message));
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                response.setCheckpoint(rows);
+                return;
+            }
+            try {
+                long[] counts = QuarkusTransaction.requiringNew().call(() -> upsert(chunk.values()));
+                response.setInserted(response.getInserted() + counts[0]);
+                response.setUpdated(response.getUpdated() + counts[1]);
+                response.setUnchanged(response.getUnchanged() + counts[2]);
+                response.setDuplicates(response.getDuplicates() + duplicates);
+                response.setCheckpoint(rows);
+            } catch (RuntimeException e) {
+                log.warning("Customer import stopped after row " + response.getCheckpoint() + ": " + e.getMessage());
+                stopped = true;
+                error(response.getCheckpoint() + 1, "Upsert failed, import stopped: " + e.getMessage());
+            }
+            chunk.clear();
+            duplicates = 0;
+        }
+    }
+
+    /**
+     * Upsert one chunk of customers with distinct emails.
+     *
+     * @return the inserted, updated and unchanged counts
+     */
+    private long[] upsert(Collection<Customer> customers) {
+        Map<String, Customer> existing = statelessSession
+                .createSelectionQuery("from Customer where email in :emails", Customer.class)
+                .setParameter("emails", customers.stream().map(Customer::getEmail).toList())
+                .getResultStream()
+                .collect(Collectors.toMap(Customer::getEmail, Function.identity()));
+
+        statelessSession.setJdbcBatchSize(chunkSize);
+        List<Customer> inserts = new ArrayList<>();
+        long updated = 0;
+        long unchanged = 0;
+        for (Customer customer : customers) {
+            Customer current = existing.get(customer.getEmail());
+            if (current == null) {
+                inserts.add(customer);
+            } else if (Objects.equals(current.getFirstName(), customer.getFirstName())
+                    && Objects.equals(current.getLastName(), customer.getLastName())
+                    && Objects.equals(current.getPhoneNumber(), customer.getPhoneNumber())) {
+                unchanged++;
+            } else {
+                current.setFirstName(customer.getFirstName());
+                current.setLastName(customer.getLastName());
+                current.setPhoneNumber(customer.getPhoneNumber());
+                statelessSession.update(current);
+                customerCache.invalidate(current.getId(), current.getEmail());
+                updated++;
+            }
+        }
+        // Updates first, then inserts, so each kind of statement goes out as one batch
+        inserts.forEach(statelessSession::insert);
+        return new long[] {inserts.size(), updated, unchanged};
+    }
+}
@@ -7,8 +7,11 @@ import jakarta.validation.Valid;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 import uk.ac.newcastle.enterprisemiddleware.entity.Customer;
+import uk.ac.newcastle.enterprisemiddleware.repository.BookingRepository;
 import uk.ac.newcastle.enterprisemiddleware.repository.CustomerRepository;
+import uk.ac.newcastle.enterprisemiddleware.util.KeysetPage;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -24,14 +27,25 @@ public class CustomerService {
     @Inject
     CustomerRepository customerRepository;
 
+    @Inject
+    BookingRepository bookingRepository;
+
+    @Inject
+    CommodityService commodityService;
+
+    @Inject
+    CustomerCache customerCache;
+
     /**
-     * Get all customers.
+     * Get a page of customers in id order.
      *
-     * @return list of all customers
+     * @param after the last customer ID of the previous page, or null for the first page
+     * @param limit the page size
+     * @return the page of customers
      */
-    public List<Customer> findAllCustomers() {
-        log.info("Finding all customers");
-        return customerRepository.listAll();
+    public KeysetPage<Customer> findCustomers(Long after, int limit) {
+        log.info("Finding " + limit + " customers after id " + after);
+        return KeysetPage.of(customerRepository.findPage(after, limit + 1), limit, Customer::getId);
     }
 
     /**
@@ -50,6 +64,31 @@ public class CustomerService {
         return customer;
     }
 
+    /**
+     * Get a customer by ID from the lookup cache, for the booking path and display reads.
+     * The result is detached; use {@link #findCustomerById(Long)} to change the customer.
+     *
+     * @param id the customer ID
+     * @return a detached copy of the customer
+     * @throws WebApplicationException if customer not found
+     */
+    public Customer findCustomerByIdCached(Long id) {
+        return customerCache.get(id)
+                .orElseThrow(() -> new WebApplicationException("Customer with id " + id + " not found",
+                        Response.Status.NOT_FOUND));
+    }
+
+    /**
+     * Get all customers with the given IDs in a single query.
+     *
+     * @param ids the customer IDs
+     * @return list of customers found; missing IDs are skipped
+     */
+    public List<Customer> findCustomersByIds(Collection<Long> ids) {
+        log.info("Finding " + ids.size() + " customers by id");
+        return customerRepository.findByIds(ids);
+    }
+
     /**
      * Create a new customer.
      *
@@ -62,12 +101,14 @@ public class CustomerService {
         log.info("Creating customer: " + customer.getEmail());
         
         // Check if email already exists
-        if (customerRepository.existsByEmail(customer.getEmail())) {
+        if (customerCache.isEmailInUse(customer.getEmail())) {
             throw new WebApplicationException("Customer with email " + customer.getEmail() + " already exists", 
                     Response.Status.CONFLICT);
         }
         
         customerRepository.persist(customer);
+        // Anything cached for the new customer inside this transaction is dropped if it rolls back
+        customerCache.invalidate(customer.getId(), customer.getEmail());
         return customer;
     }
 
@@ -87,11 +128,13 @@ public class CustomerService {
         
         // Check if email is being changed and if new email already exists
         if (!existingCustomer.getEmail().equals(customer.getEmail()) 
-                && customerRepository.existsByEmail(customer.getEmail())) {
+                && customerCache.isEmailInUse(customer.getEmail())) {
             throw new WebApplicationException("Customer with email " + customer.getEmail() + " already exists", 
                     Response.Status.CONFLICT);
         }
         
+        customerCache.invalidate(id, existingCustomer.getEmail());
+        customerCache.invalidate(id, customer.getEmail());
         existingCustomer.setFirstName(customer.getFirstName());
         existingCustomer.setLastName(customer.getLastName());
         existingCustomer.setEmail(customer.getEmail());
@@ -102,7 +145,7 @@ public class CustomerService {
 
     /**
      * Delete a customer by ID.
-     * This will cascade delete all bookings associated with this customer.
+     * All bookings of the customer are deleted and their seats returned to the commodities.
      *
      * @param id the customer ID
      * @throws WebApplicationException if customer not found
@@ -112,9 +155,14 @@ public class CustomerService {
         log.info("Deleting customer with id: " + id);
         
         Customer customer = findCustomerById(id);
+        
+        // Return the customer's seats, then remove their bookings, each as one statement
+        commodityService.releaseSeatsOfCustomer(id);
+        long bookings = bookingRepository.deleteByCustomerId(id);
         customerRepository.delete(customer);
+        customerCache.invalidate(id, customer.getEmail());
         
-        log.info("Customer deleted successfully. Associated bookings were also deleted due to cascade.");
+        log.info("Customer deleted successfully along with " + bookings + " bookings");
     }
 }
 
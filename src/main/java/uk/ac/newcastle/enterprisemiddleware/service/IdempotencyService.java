@@ -0,0 +1,279 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.entity.IdempotencyRecord;
+import uk.ac.newcastle.enterprisemiddleware.repository.IdempotencyRecordRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Service class for Idempotency-Key handling on non-idempotent POST endpoints.
+ *
+ * The first request with a key runs normally and its response is stored; later requests with the
+ * same key get the stored response back without running again. Stored responses are kept in a
+ * bounded in-memory cache that evicts by age, backed by the IdempotencyRecord table so keys
+ * survive a restart. Concurrent requests with the same key wait for the one in flight instead of
+ * running in parallel.
+ *
+ * Only outcomes below 500 are stored, whether returned as a Response or thrown as a
+ * WebApplicationException, so a request that failed on the server can be retried with the same
+ * key. A key reused with a different request is rejected with 422.
+ *
+ * With {@link #executeInTransaction} the action runs in a transaction that also stores its
+ * response, so work that commits always has its record and a retry can never redo it. Work
+ * that commits in several transactions of its own, like the travel saga, uses {@link #execute}
+ * and stores the response after the action returns.
+ */
+@ApplicationScoped
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Inject
+    Logger log;
+
+    @Inject
+    IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "booking.idempotency.ttl", defaultValue = "24h")
+    Duration ttl;
+
+    @ConfigProperty(name = "booking.idempotency.max-entries", defaultValue = "10000")
+    long maxEntries;
+
+    @ConfigProperty(name = "booking.idempotency.wait-timeout", defaultValue = "30s")
+    Duration waitTimeout;
+
+    private final ConcurrentMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+    private Cache<String, IdempotencyRecord> responses;
+    private Counter hits;
+    private Counter misses;
+    private Counter waits;
+
+    void onStart(@Observes StartupEvent event) {
+        responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        hits = registry.counter("booking.idempotency.requests", "result", "hit");
+        misses = registry.counter("booking.idempotency.requests", "result", "miss");
+        waits = registry.counter("booking.idempotency.requests", "result", "wait");
+    }
+
+    /**
+     * Run a request at most once per idempotency key, storing its response once it returns.
+     *
+     * @param scope   the endpoint the key belongs to, so keys of different endpoints never clash
+     * @param key     the Idempotency-Key header value, or null to run the request unconditionally
+     * @param request the request parameters, used to detect a key reused for a different request
+     * @param action  produces the response of the request
+     * @return the response of the action, or the stored response of an earlier request with the key
+     * @throws WebApplicationException if the key is invalid, reused for a different request, or
+     *                                 the request holding it is still running after the wait timeout
+     */
+    public Response execute(String scope, String key, Object request, Supplier<Response> action) {
+        return execute(scope, key, request, action, false);
+    }
+
+    /**
+     * Run a request at most once per idempotency key, in a new transaction that the action's
+     * transactional work joins and that also stores the response.
+     *
+     * @param scope   the endpoint the key belongs to, so keys of different endpoints never clash
+     * @param key     the Idempotency-Key header value, or null to run the request unconditionally
+     * @param request the request parameters, used to detect a key reused for a different request
+     * @param action  produces the response of the request
+     * @return the response of the action, or the stored response of an earlier request with the key
+     * @throws WebApplicationException if the key is invalid, reused for a different request, or
+     *                                 the request holding it is still running after the wait timeout
+     */
+    public Response executeInTransaction(String scope, String key, Object request, Supplier<Response> action) {
+        return execute(scope, key, request, action, true);
+    }
+
+    private Response execute(String scope, String key, Object request, Supplier<Response> action, boolean atomic) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new WebApplicationException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters",
+                    Response.Status.BAD_REQUEST);
+        }
+        String id = scope + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            waits.increment();
+            log.info("Waiting for in-flight request with idempotency key " + id);
+            return replay(await(running), fingerprint);
+        }
+
+        try {
+            IdempotencyRecord stored = lookup(id);
+            if (stored != null) {
+                hits.increment();
+                mine.complete(stored);
+                return replay(stored, fingerprint);
+            }
+
+            misses.increment();
+            IdempotencyRecord[] record = new IdempotencyRecord[1];
+            Response response;
+            try {
+                if (atomic) {
+                    response = QuarkusTransaction.requiringNew().call(() -> {
+                        Response result = action.get();
+                        record[0] = record(id, fingerprint, result);
+                        if (result.getStatus() < 500) {
+                            idempotencyRecordRepository.store(record[0]);
+                        }
+                        return result;
+                    });
+                } else {
+                    response = action.get();
+                    record[0] = record(id, fingerprint, response);
+                    if (response.getStatus() < 500) {
+                        QuarkusTransaction.requiringNew().run(() -> idempotencyRecordRepository.store(record[0]));
+                    }
+                }
+            } catch (WebApplicationException e) {
+                // A rejection rolled back the action's work, so its record is stored on its own
+                if (e.getResponse().getStatus() < 500) {
+                    IdempotencyRecord rejected = record(id, fingerprint, e.getResponse());
+                    QuarkusTransaction.requiringNew().run(() -> idempotencyRecordRepository.store(rejected));
+                    responses.put(id, rejected);
+                    mine.complete(rejected);
+                }
+                throw e;
+            }
+            if (response.getStatus() < 500) {
+                responses.put(id, record[0]);
+            }
+            mine.complete(record[0]);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    /**
+     * Delete stored responses older than the time to live.
+     */
+    @Scheduled(every = "1h", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void purgeExpired() {
+        long deleted = idempotencyRecordRepository.deleteExpired(Instant.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("Purged " + deleted + " expired idempotency records");
+        }
+    }
+
+    private IdempotencyRecord lookup(String id) {
+        IdempotencyRecord cached = responses.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        IdempotencyRecord stored = QuarkusTransaction.requiringNew().call(() ->
+                idempotencyRecordRepository.findUnexpired(id, Instant.now().minus(ttl)).orElse(null));
+        if (stored != null) {
+            responses.put(id, stored);
+        }
+        return stored;
+    }
+
+    private IdempotencyRecord record(String id, String fingerprint, Response response) {
+        return new IdempotencyRecord(id, fingerprint, response.getStatus(), body(response.getEntity()), Instant.now());
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new WebApplicationException("A request with this " + HEADER + " is still in progress",
+                    Response.Status.CONFLICT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebApplicationException("Interrupted while waiting for request with the same " + HEADER,
+                    Response.Status.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Response replay(IdempotencyRecord record, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            throw new WebApplicationException(HEADER + " was already used for a different request", 422);
+        }
+        return Response.status(record.getStatus())
+                .entity(record.getBody())
+                .type(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .build();
+    }
+
+    private String body(Object entity) {
+        if (entity == null || entity instanceof String) {
+            return (String) entity;
+        }
+        try {
+            return objectMapper.writeValueAsString(entity);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store response for replay", e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+}
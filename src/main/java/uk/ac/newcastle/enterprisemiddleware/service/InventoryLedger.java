@@ -0,0 +1,312 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.entity.InventoryCheckpoint;
+import uk.ac.newcastle.enterprisemiddleware.repository.BookingRepository;
+import uk.ac.newcastle.enterprisemiddleware.repository.CommodityRepository;
+import uk.ac.newcastle.enterprisemiddleware.repository.InventoryCheckpointRepository;
+import uk.ac.newcastle.enterprisemiddleware.repository.SeatHoldRepository;
+import uk.ac.newcastle.enterprisemiddleware.util.TransactionHooks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Optional in-memory seat ledger that serves booking admission without touching the Commodity row.
+ *
+ * Each commodity has a lock-free counter of available seats. Seat changes are recorded as pending
+ * deltas once the booking transaction commits, and written back to {@code Commodity.quantity} in
+ * periodic batches. An {@link InventoryCheckpoint} per commodity stores how many booked or held
+ * seats the quantity column already reflects, so changes committed but not yet flushed before a
+ * crash are reconciled against the Booking and SeatHold tables on the next startup.
+ *
+ * Enabled with {@code booking.inventory.ledger.enabled=true}. While enabled, the quantity returned
+ * by the commodity endpoints may lag behind the ledger by up to one flush interval.
+ */
+@ApplicationScoped
+public class InventoryLedger {
+
+    @Inject
+    Logger log;
+
+    @Inject
+    CommodityRepository commodityRepository;
+
+    @Inject
+    BookingRepository bookingRepository;
+
+    @Inject
+    SeatHoldRepository seatHoldRepository;
+
+    @Inject
+    InventoryCheckpointRepository checkpointRepository;
+
+    @Inject
+    CommodityCache commodityCache;
+
+    @Inject
+    CatalogSnapshot catalogSnapshot;
+
+    @Inject
+    TransactionHooks transactionHooks;
+
+    @ConfigProperty(name = "booking.inventory.ledger.enabled", defaultValue = "false")
+    boolean enabled;
+
+    private final ConcurrentMap<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Check whether booking admission is served from the ledger.
+     *
+     * @return true if the ledger is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reconcile unflushed bookings left by a previous run and, if enabled, load the seat counters.
+     * Runs even when the ledger is disabled so a crash while it was enabled is still repaired.
+     * Any in-memory state is discarded first, as a crash would have lost it.
+     */
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        available.clear();
+        pending.clear();
+        Map<Long, Long> bookedSeats = bookingRepository.countBookedSeatsByCommodity();
+        seatHoldRepository.sumHeldSeatsByCommodity().forEach((id, seats) -> bookedSeats.merge(id, seats, Long::sum));
+        Map<Long, InventoryCheckpoint> checkpoints = new HashMap<>();
+        checkpointRepository.streamAll().forEach(checkpoint -> checkpoints.put(checkpoint.getCommodityId(), checkpoint));
+
+        commodityRepository.streamAll().forEach(commodity -> {
+            long booked = bookedSeats.getOrDefault(commodity.getId(), 0L);
+            InventoryCheckpoint checkpoint = checkpoints.remove(commodity.getId());
+            if (checkpoint != null && checkpoint.getBookedSeats() != booked) {
+                long drift = booked - checkpoint.getBookedSeats();
+                log.warning("Reconciling " + drift + " unflushed seats for commodity " + commodity.getId());
+                long quantity = commodity.getQuantity() - drift;
+                if (quantity < 0) {
+                    // The quantity column cannot go below zero, so the oversold seats are only visible here
+                    log.severe("Commodity " + commodity.getId() + " is oversold by " + -quantity
+                            + " seats; its bookings need to be checked by hand");
+                    quantity = 0;
+                }
+                commodity.setQuantity((int) quantity);
+                checkpoint.setBookedSeats(booked);
+            }
+            if (enabled) {
+                if (checkpoint == null) {
+                    checkpointRepository.persist(new InventoryCheckpoint(commodity.getId(), booked));
+                }
+                available.put(commodity.getId(), new AtomicInteger(commodity.getQuantity()));
+            }
+        });
+
+        // Checkpoints of deleted commodities, or all of them when the ledger is off, are stale
+        checkpoints.values().forEach(checkpointRepository::delete);
+        if (!enabled) {
+            checkpointRepository.deleteAll();
+        }
+        log.info("Inventory ledger " + (enabled ? "loaded " + available.size() + " commodities" : "disabled"));
+    }
+
+    /**
+     * Write any pending seat changes before the application stops.
+     */
+    @Transactional
+    void onStop(@Observes ShutdownEvent event) {
+        flush();
+    }
+
+    /**
+     * Take seats from the ledger. The seats are returned automatically if the surrounding
+     * transaction rolls back.
+     *
+     * @param id    the commodity ID
+     * @param seats the number of seats to take
+     * @return true if the seats were taken, false if not enough remain or the commodity is unknown
+     */
+    public boolean take(Long id, int seats) {
+        return take(id, seats, false) == seats;
+    }
+
+    /**
+     * Take as many seats as are available, up to the requested number. The seats are returned
+     * automatically if the surrounding transaction rolls back.
+     *
+     * @param id    the commodity ID
+     * @param seats the maximum number of seats to take
+     * @return the number of seats taken, zero if sold out or the commodity is unknown
+     */
+    public int takeUpTo(Long id, int seats) {
+        return take(id, seats, true);
+    }
+
+    private int take(Long id, int seats, boolean partial) {
+        AtomicInteger counter = counter(id);
+        if (counter == null) {
+            return 0;
+        }
+        int current;
+        int taken;
+        do {
+            current = counter.get();
+            taken = partial ? Math.min(seats, current) : seats;
+            if (taken <= 0 || current < taken) {
+                return 0;
+            }
+        } while (!counter.compareAndSet(current, current - taken));
+
+        int seatsTaken = taken;
+        transactionHooks.afterCompletion(committed -> {
+            if (committed) {
+                pending.computeIfAbsent(id, key -> new AtomicInteger()).addAndGet(-seatsTaken);
+            } else {
+                counter.addAndGet(seatsTaken);
+            }
+        });
+        return taken;
+    }
+
+    /**
+     * Give seats back to the ledger once the surrounding transaction commits.
+     *
+     * @param id    the commodity ID
+     * @param seats the number of seats to return
+     * @return false if the commodity is unknown
+     */
+    public boolean release(Long id, int seats) {
+        AtomicInteger counter = counter(id);
+        if (counter == null) {
+            return false;
+        }
+        transactionHooks.afterCommit(() -> {
+            counter.addAndGet(seats);
+            pending.computeIfAbsent(id, key -> new AtomicInteger()).addAndGet(seats);
+        });
+        return true;
+    }
+
+    /**
+     * Start tracking a newly created commodity.
+     *
+     * @param commodity the persisted commodity
+     */
+    public void track(Commodity commodity) {
+        if (!enabled) {
+            return;
+        }
+        checkpointRepository.persist(new InventoryCheckpoint(commodity.getId(), 0L));
+        transactionHooks.afterCommit(() -> {
+            available.put(commodity.getId(), new AtomicInteger(commodity.getQuantity()));
+        });
+    }
+
+    /**
+     * Replace the available seats of a commodity with an absolute quantity, as set by an update.
+     * Pending seat changes are discarded since the new quantity supersedes them, but the
+     * checkpoint still records the bookings they came from.
+     *
+     * The counter is adjusted in place by the change in quantity rather than replaced, since takes
+     * and releases still in flight hold it and settle against it when their transactions complete.
+     *
+     * @param id       the commodity ID
+     * @param previous the quantity column before the update
+     * @param quantity the new quantity
+     */
+    public void reset(Long id, int previous, int quantity) {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger delta = pending.get(id);
+        int drained = delta != null ? delta.getAndSet(0) : 0;
+        if (drained != 0) {
+            checkpointRepository.addBookedSeats(id, -drained);
+        }
+        transactionHooks.afterCompletion(committed -> {
+            if (committed) {
+                // Committed seats before the update were the column plus the unflushed changes
+                AtomicInteger counter = available.putIfAbsent(id, new AtomicInteger(quantity));
+                if (counter != null) {
+                    counter.addAndGet(quantity - (previous + drained));
+                }
+            } else if (drained != 0) {
+                pending.computeIfAbsent(id, key -> new AtomicInteger()).addAndGet(drained);
+            }
+        });
+    }
+
+    /**
+     * Stop tracking a deleted commodity.
+     *
+     * @param id the commodity ID
+     */
+    public void forget(Long id) {
+        if (!enabled) {
+            return;
+        }
+        checkpointRepository.deleteById(id);
+        transactionHooks.afterCommit(() -> {
+            available.remove(id);
+            pending.remove(id);
+        });
+    }
+
+    /**
+     * Write the net seat changes accumulated since the last flush to the Commodity table.
+     * Changes are put back if the flush transaction fails, so they are retried next time.
+     */
+    @Scheduled(every = "${booking.inventory.ledger.flush-interval}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void flush() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Integer> drained = new HashMap<>();
+        pending.forEach((id, delta) -> {
+            int seats = delta.getAndSet(0);
+            if (seats != 0) {
+                drained.put(id, seats);
+                commodityRepository.adjustQuantity(id, seats);
+                checkpointRepository.addBookedSeats(id, -seats);
+                commodityCache.invalidate(id);
+            }
+        });
+        if (drained.isEmpty()) {
+            return;
+        }
+        catalogSnapshot.changed();
+        transactionHooks.afterCompletion(committed -> {
+            if (!committed) {
+                drained.forEach((id, seats) -> pending.computeIfAbsent(id, key -> new AtomicInteger()).addAndGet(seats));
+            }
+        });
+        log.fine("Flushed inventory changes for " + drained.size() + " commodities");
+    }
+
+    private AtomicInteger counter(Long id) {
+        AtomicInteger seats = available.get(id);
+        if (seats == null) {
+            Commodity commodity = commodityRepository.findById(id);
+            if (commodity == null) {
+                return null;
+            }
+            seats = available.computeIfAbsent(id, key -> new AtomicInteger(commodity.getQuantity()));
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,241 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Status;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import uk.ac.newcastle.enterprisemiddleware.entity.SeatHold;
+import uk.ac.newcastle.enterprisemiddleware.repository.SeatHoldRepository;
+import uk.ac.newcastle.enterprisemiddleware.util.HashedTimerWheel;
+import uk.ac.newcastle.enterprisemiddleware.util.TransactionHooks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Service class for timed seat holds.
+ *
+ * A hold takes seats from the commodity straight away and gives them back when it expires,
+ * unless they are redeemed by a booking first. Expiry is driven by an in-memory
+ * {@link HashedTimerWheel} rather than by polling the SeatHold table; the table is only read at
+ * startup to re-arm the timers of holds that were outstanding when the application stopped.
+ *
+ * Each hold's timeout is kept by hold ID and armed once the hold commits. Releasing a hold, or
+ * redeeming its last seat (which deletes it), cancels the timeout once that commits, so the
+ * expiry transaction only ever runs for holds that are really left to expire.
+ */
+@ApplicationScoped
+public class SeatHoldService {
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+    @Inject
+    Logger log;
+
+    @Inject
+    SeatHoldRepository seatHoldRepository;
+
+    @Inject
+    CommodityService commodityService;
+
+    @Inject
+    TransactionHooks transactionHooks;
+
+    @ConfigProperty(name = "booking.holds.ttl", defaultValue = "10m")
+    Duration ttl;
+
+    @ConfigProperty(name = "booking.holds.max-seats", defaultValue = "10")
+    int maxSeats;
+
+    @ConfigProperty(name = "booking.holds.timer.tick", defaultValue = "100ms")
+    Duration tick;
+
+    @ConfigProperty(name = "booking.holds.timer.wheel-size", defaultValue = "512")
+    int wheelSize;
+
+    private final ConcurrentMap<String, HashedTimerWheel.Timeout<String>> timeouts = new ConcurrentHashMap<>();
+    private HashedTimerWheel<String> expiryTimer;
+    private ExecutorService expiryExecutor;
+
+    /**
+     * Start the expiry timer and re-arm the holds left by a previous run.
+     */
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        expiryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiryTimer = new HashedTimerWheel<>("seat-hold-timer", tick, wheelSize,
+                holdIds -> expiryExecutor.execute(() -> expire(holdIds)));
+
+        Instant now = Instant.now();
+        long outstanding = seatHoldRepository.streamAll()
+                .peek(hold -> arm(hold.getId(), Duration.between(now, hold.getExpiresAt())))
+                .count();
+        log.info("Seat hold timer started with " + outstanding + " outstanding holds");
+    }
+
+    @PreDestroy
+    void stop() {
+        if (expiryTimer != null) {
+            expiryTimer.close();
+        }
+        if (expiryExecutor != null) {
+            expiryExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Hold seats on a commodity for the configured time to live.
+     *
+     * @param commodityId the commodity ID
+     * @param seats       the number of seats to hold
+     * @return the created hold
+     * @throws WebApplicationException if the seat count is invalid, the commodity is not found or sold out
+     */
+    @Transactional
+    public SeatHold placeHold(Long commodityId, int seats) {
+        log.info("Holding " + seats + " seats on commodity " + commodityId);
+
+        if (seats < 1 || seats > maxSeats) {
+            throw new WebApplicationException("Seats must be between 1 and " + maxSeats, Response.Status.BAD_REQUEST);
+        }
+
+        commodityService.decreaseQuantity(commodityId, seats);
+
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), commodityId, seats, Instant.now().plus(ttl));
+        seatHoldRepository.persist(hold);
+
+        String holdId = hold.getId();
+        transactionHooks.afterCommit(() -> arm(holdId, ttl));
+        return hold;
+    }
+
+    /**
+     * Redeem seats from a hold in place of taking them from the commodity.
+     *
+     * @param holdId      the hold ID
+     * @param commodityId the commodity the hold must belong to
+     * @param seats       the number of seats to redeem
+     * @throws WebApplicationException if the hold is not found, expired or has too few seats left
+     */
+    @Transactional
+    public void redeemHold(String holdId, Long commodityId, int seats) {
+        log.info("Redeeming " + seats + " seats from hold " + holdId);
+
+        if (!seatHoldRepository.redeemSeats(holdId, commodityId, seats, Instant.now())) {
+            SeatHold hold = seatHoldRepository.findById(holdId);
+            if (hold == null || !hold.getCommodityId().equals(commodityId)) {
+                throw new WebApplicationException("Seat hold " + holdId + " not found for commodity " + commodityId,
+                        Response.Status.NOT_FOUND);
+            }
+            throw new WebApplicationException("Seat hold " + holdId + " has expired or has too few seats left",
+                    Response.Status.GONE);
+        }
+        if (seatHoldRepository.deleteIfRedeemed(holdId)) {
+            transactionHooks.afterCommit(() -> disarm(holdId));
+        }
+    }
+
+    /**
+     * Release a hold before it expires and give its remaining seats back.
+     *
+     * @param holdId      the hold ID
+     * @param commodityId the commodity the hold must belong to
+     * @throws WebApplicationException if the hold is not found
+     */
+    @Transactional
+    public void releaseHold(String holdId, Long commodityId) {
+        log.info("Releasing seat hold " + holdId);
+
+        SeatHold hold = seatHoldRepository.findById(holdId, LockModeType.PESSIMISTIC_WRITE);
+        if (hold == null || !hold.getCommodityId().equals(commodityId)) {
+            throw new WebApplicationException("Seat hold " + holdId + " not found for commodity " + commodityId,
+                    Response.Status.NOT_FOUND);
+        }
+        if (hold.getSeats() > 0) {
+            commodityService.increaseQuantity(hold.getCommodityId(), hold.getSeats());
+        }
+        seatHoldRepository.delete(hold);
+        transactionHooks.afterCommit(() -> disarm(holdId));
+    }
+
+    /**
+     * Release a batch of expired holds in one transaction, returning their seats with one
+     * update per commodity.
+     */
+    private void expire(List<String> holdIds) {
+        try {
+            List<String> early = new ArrayList<>();
+            List<String> done = new ArrayList<>();
+            QuarkusTransaction.requiringNew().run(() -> {
+                Instant now = Instant.now();
+                Map<Long, Integer> seatsByCommodity = new HashMap<>();
+                for (String holdId : holdIds) {
+                    SeatHold hold = seatHoldRepository.findById(holdId, LockModeType.PESSIMISTIC_WRITE);
+                    if (hold == null) {
+                        done.add(holdId);
+                        continue;
+                    }
+                    if (hold.getExpiresAt().isAfter(now)) {
+                        early.add(holdId);
+                        continue;
+                    }
+                    if (hold.getSeats() > 0) {
+                        seatsByCommodity.merge(hold.getCommodityId(), hold.getSeats(), Integer::sum);
+                    }
+                    seatHoldRepository.delete(hold);
+                    done.add(holdId);
+                }
+                seatsByCommodity.forEach(commodityService::increaseQuantity);
+            });
+            done.forEach(timeouts::remove);
+            // Wall clock and timer clock can disagree slightly; try again shortly
+            early.forEach(holdId -> arm(holdId, tick));
+        } catch (RuntimeException e) {
+            log.severe("Failed to expire seat holds, retrying: " + e.getMessage());
+            holdIds.forEach(holdId -> arm(holdId, RETRY_DELAY));
+        }
+    }
+
+    private void arm(String holdId, Duration delay) {
+        HashedTimerWheel.Timeout<String> previous = timeouts.put(holdId, expiryTimer.schedule(holdId, delay));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void disarm(String holdId) {
+        HashedTimerWheel.Timeout<String> timeout = timeouts.remove(holdId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * @return the number of holds with an armed expiry timeout
+     */
+    int armedHolds() {
+        return timeouts.size();
+    }
+}
@@ -0,0 +1,165 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Streaming reader of the format written by {@link ColumnarWriter}.
+ *
+ * One chunk is decoded at a time and its rows are returned one by one, so memory use depends on
+ * the chunk size only.
+ */
+public class ColumnarReader {
+
+    private final DataInputStream in;
+    private final LinkedHashMap<String, ColumnarWriter.Type> columns = new LinkedHashMap<>();
+    private final ColumnarWriter.Type[] types;
+    private final byte[] encodings;
+    private long[][] chunk = new long[0][];
+    private int rows;
+    private int row;
+    private boolean finished;
+
+    // Constructors
+    /**
+     * Create a reader and read the file header.
+     *
+     * @param input the stream to read from; left open
+     * @throws IOException if the header cannot be read or is not a columnar export
+     */
+    public ColumnarReader(InputStream input) throws IOException {
+        this.in = new DataInputStream(input);
+        if (!Arrays.equals(ColumnarWriter.MAGIC, in.readNBytes(ColumnarWriter.MAGIC.length))) {
+            throw new IOException("Not a columnar export");
+        }
+        byte version = in.readByte();
+        if (version != ColumnarWriter.VERSION) {
+            throw new IOException("Unsupported columnar version " + version);
+        }
+        int columnCount = (int) readVarint();
+        for (int i = 0; i < columnCount; i++) {
+            String name = new String(in.readNBytes((int) readVarint()), StandardCharsets.UTF_8);
+            columns.put(name, ColumnarWriter.Type.values()[in.readByte()]);
+        }
+        this.types = columns.values().toArray(new ColumnarWriter.Type[0]);
+        this.encodings = new byte[columnCount];
+    }
+
+    /**
+     * @return the column names and types, in order
+     */
+    public LinkedHashMap<String, ColumnarWriter.Type> getColumns() {
+        return columns;
+    }
+
+    /**
+     * The encoding of a column in the chunk of the row last read.
+     *
+     * @param column the column position
+     * @return {@link ColumnarWriter#PLAIN} or {@link ColumnarWriter#DICTIONARY}
+     */
+    public byte getEncoding(int column) {
+        return encodings[column];
+    }
+
+    /**
+     * Read the next row.
+     *
+     * @return one value per column: a Long for LONG, a Double for DOUBLE, a LocalDate for DATE;
+     *         or null after the last row
+     * @throws IOException if the input cannot be read or is truncated
+     */
+    public Object[] read() throws IOException {
+        if (row == rows && !readChunk()) {
+            return null;
+        }
+        Object[] values = new Object[types.length];
+        for (int column = 0; column < types.length; column++) {
+            long value = chunk[column][row];
+            values[column] = switch (types[column]) {
+                case LONG -> value;
+                case DOUBLE -> Double.longBitsToDouble(value);
+                case DATE -> LocalDate.ofEpochDay(value);
+            };
+        }
+        row++;
+        return values;
+    }
+
+    /**
+     * Read every remaining row.
+     *
+     * @return the rows, in order
+     * @throws IOException if the input cannot be read or is truncated
+     */
+    public List<Object[]> readAll() throws IOException {
+        List<Object[]> all = new ArrayList<>();
+        Object[] values;
+        while ((values = read()) != null) {
+            all.add(values);
+        }
+        return all;
+    }
+
+    private boolean readChunk() throws IOException {
+        if (finished) {
+            return false;
+        }
+        rows = (int) readVarint();
+        row = 0;
+        if (rows == 0) {
+            finished = true;
+            return false;
+        }
+        if (chunk.length == 0 || chunk[0].length < rows) {
+            chunk = new long[types.length][rows];
+        }
+        for (int column = 0; column < types.length; column++) {
+            encodings[column] = in.readByte();
+            if (encodings[column] == ColumnarWriter.DICTIONARY) {
+                long[] dictionary = readValues(types[column], (int) readVarint());
+                for (int i = 0; i < rows; i++) {
+                    chunk[column][i] = dictionary[(int) readVarint()];
+                }
+            } else if (encodings[column] == ColumnarWriter.PLAIN) {
+                System.arraycopy(readValues(types[column], rows), 0, chunk[column], 0, rows);
+            } else {
+                throw new IOException("Unknown column encoding " + encodings[column]);
+            }
+        }
+        return true;
+    }
+
+    private long[] readValues(ColumnarWriter.Type type, int count) throws IOException {
+        long[] values = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            if (type == ColumnarWriter.Type.DOUBLE) {
+                values[i] = in.readLong();
+            } else {
+                long zigzag = readVarint();
+                previous += (zigzag >>> 1) ^ -(zigzag & 1);
+                values[i] = previous;
+            }
+        }
+        return values;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
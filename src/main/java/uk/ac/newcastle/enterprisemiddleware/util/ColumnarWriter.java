@@ -0,0 +1,152 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streaming writer of a compact column-oriented binary format, for bulk exports.
+ *
+ * Rows are buffered into chunks of a fixed number of rows and each chunk is written column by
+ * column, so memory use depends on the chunk size only. A column chunk is dictionary encoded when
+ * it has at most half as many distinct values as rows, and plain encoded otherwise. Exports are
+ * read back with {@link ColumnarReader}.
+ *
+ * Layout, where varint is an unsigned LEB128 integer and zigzag a signed one mapped onto it:
+ * <pre>
+ * file   := "COLS" version:byte columnCount:varint (nameLength:varint name:utf8 type:byte)* chunk* 0:varint
+ * chunk  := rowCount:varint column{columnCount}
+ * column := 0:byte values                                plain
+ *         | 1:byte dictSize:varint values indexes:varint*  dictionary
+ * values := LONG and DATE (epoch day): zigzag deltas from the previous value, starting from 0
+ *           DOUBLE: 8 byte big-endian IEEE 754 values
+ * </pre>
+ */
+public class ColumnarWriter {
+
+    public static final byte[] MAGIC = "COLS".getBytes(StandardCharsets.US_ASCII);
+    public static final byte VERSION = 1;
+    public static final byte PLAIN = 0;
+    public static final byte DICTIONARY = 1;
+
+    /**
+     * The value type of a column.
+     */
+    public enum Type {
+        LONG, DOUBLE, DATE
+    }
+
+    private final DataOutputStream out;
+    private final Type[] types;
+    private final long[][] chunk;
+    private int rows;
+
+    // Constructors
+    /**
+     * Create a writer and write the file header.
+     *
+     * @param output    the stream to write to; flushed but left open by {@link #finish()}
+     * @param columns   the column names and types, in order
+     * @param chunkSize the number of rows per chunk
+     * @throws IOException if writing the header fails
+     */
+    public ColumnarWriter(OutputStream output, LinkedHashMap<String, Type> columns, int chunkSize) throws IOException {
+        this.out = new DataOutputStream(output);
+        this.types = columns.values().toArray(new Type[0]);
+        this.chunk = new long[types.length][chunkSize];
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        writeVarint(types.length);
+        for (Map.Entry<String, Type> column : columns.entrySet()) {
+            byte[] name = column.getKey().getBytes(StandardCharsets.UTF_8);
+            writeVarint(name.length);
+            out.write(name);
+            out.writeByte(column.getValue().ordinal());
+        }
+    }
+
+    /**
+     * Add a row, writing the current chunk once it is full.
+     *
+     * @param values one value per column: a Number for LONG and DOUBLE, a LocalDate for DATE
+     * @throws IOException if writing a chunk fails
+     */
+    public void write(Object... values) throws IOException {
+        if (values.length != types.length) {
+            throw new IllegalArgumentException("Expected " + types.length + " values but got " + values.length);
+        }
+        for (int column = 0; column < types.length; column++) {
+            chunk[column][rows] = switch (types[column]) {
+                case LONG -> ((Number) values[column]).longValue();
+                case DOUBLE -> Double.doubleToLongBits(((Number) values[column]).doubleValue());
+                case DATE -> ((LocalDate) values[column]).toEpochDay();
+            };
+        }
+        if (++rows == chunk[0].length) {
+            writeChunk();
+        }
+    }
+
+    /**
+     * Write the last chunk and the end marker, and flush the output.
+     *
+     * @throws IOException if writing fails
+     */
+    public void finish() throws IOException {
+        writeChunk();
+        writeVarint(0);
+        out.flush();
+    }
+
+    private void writeChunk() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        writeVarint(rows);
+        for (int column = 0; column < types.length; column++) {
+            long[] values = chunk[column];
+            Map<Long, Integer> dictionary = new LinkedHashMap<>();
+            for (int row = 0; row < rows && dictionary.size() * 2 <= rows; row++) {
+                dictionary.putIfAbsent(values[row], dictionary.size());
+            }
+            if (dictionary.size() * 2 <= rows) {
+                out.writeByte(DICTIONARY);
+                writeVarint(dictionary.size());
+                writeValues(types[column], dictionary.keySet().stream().mapToLong(Long::longValue).toArray(),
+                        dictionary.size());
+                for (int row = 0; row < rows; row++) {
+                    writeVarint(dictionary.get(values[row]));
+                }
+            } else {
+                out.writeByte(PLAIN);
+                writeValues(types[column], values, rows);
+            }
+        }
+        rows = 0;
+    }
+
+    private void writeValues(Type type, long[] values, int count) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            if (type == Type.DOUBLE) {
+                out.writeLong(values[i]);
+            } else {
+                long delta = values[i] - previous;
+                writeVarint((delta << 1) ^ (delta >> 63));
+                previous = values[i];
+            }
+        }
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,67 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * Minimal writer of RFC 4180 CSV records, the counterpart of {@link CsvReader}.
+ *
+ * Floating point numbers are written in plain decimal notation (never {@code 1.0E7}), other
+ * values with {@code toString()}. A field containing a comma, a quote or a line break is quoted,
+ * with quotes inside it doubled. Records end with LF.
+ */
+public class CsvWriter {
+
+    private final Writer writer;
+
+    // Constructors
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Write one record.
+     *
+     * @param fields the field values; null is written as an empty field
+     * @throws IOException if writing fails
+     */
+    public void write(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(format(fields[i]));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Flush the underlying writer.
+     *
+     * @throws IOException if flushing fails
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Format a value as a CSV field, quoted if needed.
+     *
+     * @param value the value
+     * @return the field text
+     */
+    public static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if ((value instanceof Double || value instanceof Float) && Double.isFinite(((Number) value).doubleValue())) {
+            return new BigDecimal(value.toString()).stripTrailingZeros().toPlainString();
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,176 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timer wheel for large numbers of coarse-grained timeouts.
+ *
+ * Timeouts are hashed into a fixed ring of buckets by deadline tick. A single worker thread
+ * advances one bucket per tick and only visits the timeouts in that bucket, so scheduling,
+ * cancelling and expiring a timeout are all O(1) regardless of how many are outstanding.
+ * Expiry precision is one tick.
+ *
+ * Timeouts that expire in the same tick are handed to the expiry handler as one batch, on the
+ * worker thread. The handler should return quickly and move any slow work elsewhere.
+ *
+ * @param <T> the type of item attached to each timeout
+ */
+public class HashedTimerWheel<T> implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(HashedTimerWheel.class.getName());
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Timeout<T>>[] wheel;
+    private final Queue<Timeout<T>> additions = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<T>> expiryHandler;
+    private final Thread worker;
+    private final long startNanos;
+
+    /**
+     * Create and start a timer wheel.
+     *
+     * @param name          name of the worker thread
+     * @param tick          duration of one tick
+     * @param wheelSize     number of buckets, rounded up to a power of two
+     * @param expiryHandler receives the items of the timeouts that expire in each tick
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(String name, Duration tick, int wheelSize, Consumer<List<T>> expiryHandler) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("tick must be positive: " + tick);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize out of range: " + wheelSize);
+        }
+        int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickNanos = tick.toNanos();
+        this.mask = size - 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.expiryHandler = expiryHandler;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedule an item to expire after the given delay.
+     *
+     * @param item  the item to hand to the expiry handler
+     * @param delay time until expiry; zero or negative expires on the next tick
+     * @return handle that can cancel the timeout
+     */
+    public Timeout<T> schedule(T item, Duration delay) {
+        long deadline = System.nanoTime() - startNanos + Math.max(0, delay.toNanos());
+        Timeout<T> timeout = new Timeout<>(item, deadline);
+        additions.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stop the worker thread. Outstanding timeouts never expire.
+     */
+    @Override
+    public void close() {
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            transferAdditions(tick);
+            List<T> expired = expireBucket(wheel[(int) (tick & mask)]);
+            if (!expired.isEmpty()) {
+                try {
+                    expiryHandler.accept(expired);
+                } catch (RuntimeException e) {
+                    log.log(Level.SEVERE, "Timer expiry handler failed", e);
+                }
+            }
+            tick++;
+        }
+    }
+
+    private void transferAdditions(long currentTick) {
+        Timeout<T> timeout;
+        while ((timeout = additions.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long deadlineTick = Math.max(currentTick, (timeout.deadlineNanos + tickNanos - 1) / tickNanos);
+            timeout.remainingRounds = (deadlineTick - currentTick) / wheel.length;
+            wheel[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private List<T> expireBucket(List<Timeout<T>> bucket) {
+        List<T> expired = new ArrayList<>();
+        int kept = 0;
+        for (Timeout<T> timeout : bucket) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            if (timeout.remainingRounds <= 0) {
+                expired.add(timeout.item);
+            } else {
+                timeout.remainingRounds--;
+                bucket.set(kept++, timeout);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+        return expired;
+    }
+
+    /**
+     * Handle to a scheduled timeout.
+     *
+     * @param <T> the type of item attached to the timeout
+     */
+    public static final class Timeout<T> {
+
+        private final T item;
+        private final long deadlineNanos;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadlineNanos) {
+            this.item = item;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Cancel the timeout. It is dropped the next time its bucket is visited.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (cursor) paginated listing ordered by id.
+ *
+ * Pages are read with {@code where id > :after order by id}, so every page costs one index range
+ * scan no matter how deep it is. The query fetches one row more than the page size to find out
+ * whether another page follows without a separate count.
+ *
+ * @param <T> the type of item on the page
+ */
+public class KeysetPage<T> {
+
+    private final List<T> items;
+    private final Long next;
+
+    private KeysetPage(List<T> items, Long next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * Build a page from rows fetched with a limit of {@code limit + 1}.
+     *
+     * @param rows  the rows read, in id order
+     * @param limit the page size
+     * @param key   extracts the id of a row
+     * @param <T>   the type of item on the page
+     * @return the page, with a next cursor if more rows follow
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, Long> key) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPage<>(items, key.apply(items.get(limit - 1)));
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Get the cursor of the next page.
+     *
+     * @return the id to pass as {@code after} for the next page, or null if this is the last page
+     */
+    public Long getNext() {
+        return next;
+    }
+}
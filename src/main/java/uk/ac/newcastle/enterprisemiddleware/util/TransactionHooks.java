@@ -0,0 +1,58 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.util.function.Consumer;
+
+/**
+ * Runs in-memory side effects of database work once the current transaction ends, so caches,
+ * indexes and timers never act on changes that are rolled back.
+ *
+ * Outside a transaction the work is already durable, so the hooks run at once as if it had
+ * committed.
+ */
+@ApplicationScoped
+public class TransactionHooks {
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    /**
+     * Run an action once the current transaction commits; it is dropped on rollback.
+     *
+     * @param action the action, run on the thread that completes the transaction
+     */
+    public void afterCommit(Runnable action) {
+        afterCompletion(committed -> {
+            if (committed) {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Run an action once the current transaction completes, whether it committed or rolled back.
+     *
+     * @param action receives true if the transaction committed
+     */
+    public void afterCompletion(Consumer<Boolean> action) {
+        if (transactionRegistry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            action.accept(true);
+            return;
+        }
+        transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == Status.STATUS_COMMITTED);
+            }
+        });
+    }
+}
@@ -11,6 +11,11 @@ INSERT INTO Commodity (id, name, description, price, quantity) VALUES (2, 'Fligh
 INSERT INTO Commodity (id, name, description, price, quantity) VALUES (3, 'Flight to Tokyo', 'Direct flight from NYC to Tokyo', 1299.99, 20);
 
 -- Insert sample bookings
-INSERT INTO Booking (id, bookingDate, customer_id, commodity_id) VALUES (1, '2025-11-12', 1, 1);
-INSERT INTO Booking (id, bookingDate, customer_id, commodity_id) VALUES (2, '2025-11-12', 2, 2);
+INSERT INTO Booking (id, bookingDate, customer_id, commodity_id, seats) VALUES (1, '2025-11-12', 1, 1, 1);
+INSERT INTO Booking (id, bookingDate, customer_id, commodity_id, seats) VALUES (2, '2025-11-12', 2, 2, 1);
 
+
+-- Move id generation past the explicit sample ids above
+ALTER SEQUENCE Customer_SEQ RESTART WITH 100;
+ALTER SEQUENCE Commodity_SEQ RESTART WITH 100;
+ALTER SEQUENCE Booking_SEQ RESTART WITH 100;
@@ -0,0 +1,76 @@
+package uk.ac.newcastle.enterprisemiddleware.repository;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.entity.Booking;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.entity.Customer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that customers, commodities and bookings get pooled sequence ids above the sample data,
+ * so bulk inserts are sent as JDBC batches instead of one statement per row.
+ */
+@QuarkusTest
+public class InsertBatchingTest {
+
+    private static final Logger LOG = Logger.getLogger(InsertBatchingTest.class.getName());
+
+    private static final int ROWS = 200;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    CustomerRepository customerRepository;
+
+    @Inject
+    CommodityRepository commodityRepository;
+
+    @Inject
+    BookingRepository bookingRepository;
+
+    @Test
+    public void testBulkInsertsAreBatched() {
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        long start = System.nanoTime();
+
+        List<Long> ids = QuarkusTransaction.requiringNew().call(() -> {
+            Commodity commodity = new Commodity("Batch Flight", "Insert batching test", 49.99, ROWS);
+            commodityRepository.persist(commodity);
+            List<Long> created = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                Customer customer = new Customer("Batch", "Customer", "batch" + i + "@test.com", "5550000000");
+                customerRepository.persist(customer);
+                bookingRepository.persist(new Booking(customer, commodity, 1));
+                created.add(customer.getId());
+            }
+            return created;
+        });
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOG.info(String.format("%d customers and bookings: %.0f inserts/sec", ROWS, 2 * ROWS / seconds));
+
+        // Ids come from the sequences, past the explicit ids in import.sql
+        Set<Long> unique = new HashSet<>(ids);
+        assertEquals(ROWS, unique.size());
+        assertTrue(ids.stream().allMatch(id -> id >= 100), "Sequence ids overlap the sample data: " + ids);
+
+        // One statement per batch of 50 per table, plus the sequence calls, instead of one per row
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements < ROWS / 4, "Expected batched inserts but prepared " + statements + " statements");
+    }
+}
@@ -0,0 +1,85 @@
+package uk.ac.newcastle.enterprisemiddleware.repository;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the hot-path repository queries are served by an index rather than a table scan.
+ * Each statement is the SQL Hibernate generates for the corresponding finder.
+ */
+@QuarkusTest
+public class QueryPlanTest {
+
+    @Inject
+    EntityManager entityManager;
+
+    private String explain(String sql) {
+        return ((String) entityManager.createNativeQuery("EXPLAIN " + sql).getSingleResult()).toUpperCase();
+    }
+
+    private void assertUsesIndex(String sql) {
+        String plan = explain(sql);
+        assertFalse(plan.contains("TABLESCAN"), "Table scan in plan: " + plan);
+    }
+
+    private void assertUsesIndex(String sql, String index) {
+        String plan = explain(sql);
+        assertFalse(plan.contains("TABLESCAN"), "Table scan in plan: " + plan);
+        assertTrue(plan.contains(index.toUpperCase()), "Expected " + index + " in plan: " + plan);
+    }
+
+    @Test
+    @Transactional
+    public void testFindBookingsByCustomerId() {
+        // Served by the customer foreign key or the (customer_id, commodity_id) unique index, which H2 names itself
+        assertUsesIndex("SELECT * FROM Booking WHERE customer_id = 1");
+    }
+
+    @Test
+    @Transactional
+    public void testFindBookingsByCommodityId() {
+        assertUsesIndex("SELECT * FROM Booking WHERE commodity_id = 1", "idx_booking_commodity");
+    }
+
+    @Test
+    @Transactional
+    public void testFindBookingsPage() {
+        assertUsesIndex("SELECT * FROM Booking WHERE id > 100 ORDER BY id FETCH FIRST 101 ROWS ONLY", "primary_key");
+    }
+
+    @Test
+    @Transactional
+    public void testFindAvailableCommodities() {
+        assertUsesIndex("SELECT * FROM Commodity WHERE quantity > 0", "idx_commodity_quantity");
+    }
+
+    @Test
+    @Transactional
+    public void testDuplicateBookingCheck() {
+        assertUsesIndex("SELECT * FROM Booking WHERE customer_id = 1 AND commodity_id = 1");
+    }
+
+    @Test
+    @Transactional
+    public void testFindCustomerByEmail() {
+        assertUsesIndex("SELECT * FROM Customer WHERE email = 'john.doe@example.com'");
+    }
+
+    @Test
+    @Transactional
+    public void testDeleteSeatHoldsByCommodityId() {
+        assertUsesIndex("SELECT * FROM SeatHold WHERE commodity_id = 1", "idx_seathold_commodity");
+    }
+
+    @Test
+    @Transactional
+    public void testPurgeExpiredIdempotencyRecords() {
+        assertUsesIndex("SELECT * FROM IdempotencyRecord WHERE createdAt <= CURRENT_TIMESTAMP", "idx_idempotency_created");
+    }
+}
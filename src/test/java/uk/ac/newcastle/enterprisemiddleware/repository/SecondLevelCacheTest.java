@@ -0,0 +1,109 @@
+package uk.ac.newcastle.enterprisemiddleware.repository;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.narayana.jta.QuarkusTransactionException;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.service.CommodityService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that commodities are served from the second-level and query caches, and that the
+ * quantity updates made by bookings and cancellations are never hidden by a cached value.
+ * Each read runs in its own transaction so it cannot be answered by the persistence context.
+ */
+@QuarkusTest
+public class SecondLevelCacheTest {
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    CommodityRepository commodityRepository;
+
+    @Inject
+    CommodityService commodityService;
+
+    private Long createCommodity(int quantity) {
+        return commodityService.createCommodity(new Commodity("L2 Flight", "Second-level cache test", 89.99, quantity))
+                .getId();
+    }
+
+    private int quantityOf(Long id) {
+        return QuarkusTransaction.requiringNew().call(() -> commodityRepository.findById(id).getQuantity());
+    }
+
+    private List<Long> availableAfter(Long after) {
+        return QuarkusTransaction.requiringNew().call(() -> commodityRepository.findAvailableCommodities(after, 10)
+                .stream().map(Commodity::getId).toList());
+    }
+
+    private Statistics statistics() {
+        return sessionFactory.getStatistics();
+    }
+
+    @Test
+    public void testCommodityReadsHitSecondLevelCache() {
+        Long id = createCommodity(4);
+        quantityOf(id);
+        long hits = statistics().getEntityStatistics(Commodity.class.getName()).getCacheHitCount();
+
+        assertEquals(4, quantityOf(id));
+
+        assertTrue(statistics().getEntityStatistics(Commodity.class.getName()).getCacheHitCount() > hits);
+    }
+
+    @Test
+    public void testDecreaseAndIncreaseQuantityInvalidateCache() {
+        Long id = createCommodity(5);
+        assertEquals(5, quantityOf(id));
+
+        commodityService.decreaseQuantity(id, 2);
+        assertEquals(3, quantityOf(id));
+
+        commodityService.increaseQuantity(id, 1);
+        assertEquals(4, quantityOf(id));
+    }
+
+    @Test
+    public void testRolledBackDecreaseIsNotCached() {
+        Long id = createCommodity(5);
+        assertEquals(5, quantityOf(id));
+
+        // A booking that reads the commodity after taking seats, then fails
+        assertThrows(QuarkusTransactionException.class, () -> QuarkusTransaction.requiringNew().run(() -> {
+            commodityService.decreaseQuantity(id, 2);
+            assertEquals(3, commodityService.findCommodityById(id).getQuantity());
+            QuarkusTransaction.setRollbackOnly();
+        }));
+
+        assertEquals(5, quantityOf(id));
+    }
+
+    @Test
+    public void testAvailableCommoditiesQueryCache() {
+        Long id = createCommodity(1);
+        assertEquals(List.of(id), availableAfter(id - 1));
+        long hits = statistics().getQueryCacheHitCount();
+
+        assertEquals(List.of(id), availableAfter(id - 1));
+        assertTrue(statistics().getQueryCacheHitCount() > hits);
+
+        // Selling the last seat changes the Commodity table, so the cached result is not reused
+        commodityService.decreaseQuantity(id, 1);
+        assertFalse(availableAfter(id - 1).contains(id));
+
+        commodityService.increaseQuantity(id, 1);
+        assertEquals(List.of(id), availableAfter(id - 1));
+    }
+}
@@ -0,0 +1,172 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrency tests for seat inventory when many clients book the same commodity at once.
+ */
+@QuarkusTest
+public class BookingConcurrencyTest {
+
+    private static final Logger log = Logger.getLogger(BookingConcurrencyTest.class.getName());
+
+    private static final int CLIENTS = 64;
+    private static final int SEATS = 10;
+
+    @Test
+    public void testConcurrentBookings_NoOverselling() throws Exception {
+        String newCommodity = """
+            {
+                "name": "Flash Sale Flight",
+                "description": "Concurrency test flight",
+                "price": 99.99,
+                "quantity": %d
+            }
+            """.formatted(SEATS);
+
+        Integer commodityId = given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        List<Integer> customerIds = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            String newCustomer = """
+                {
+                    "firstName": "Flash",
+                    "lastName": "Client",
+                    "email": "flash.client%d@test.com",
+                    "phoneNumber": "5550000000"
+                }
+                """.formatted(i);
+
+            customerIds.add(given()
+                .contentType(ContentType.JSON)
+                .body(newCustomer)
+                .when().post("/customers")
+                .then()
+                .statusCode(201)
+                .extract().path("id"));
+        }
+
+        // Release all clients at once so they race for the same commodity row
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (Integer customerId : customerIds) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return given()
+                    .contentType(ContentType.JSON)
+                    .queryParam("customerId", customerId)
+                    .queryParam("commodityId", commodityId)
+                    .when().post("/bookings")
+                    .then()
+                    .extract().statusCode();
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        int created = 0;
+        int soldOut = 0;
+        for (Future<Integer> result : results) {
+            int status = result.get();
+            if (status == 201) {
+                created++;
+            } else if (status == 400) {
+                soldOut++;
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+        executor.shutdown();
+
+        log.info(CLIENTS + " concurrent clients: " + String.format("%.1f", CLIENTS / seconds) + " bookings/sec");
+
+        assertEquals(SEATS, created);
+        assertEquals(CLIENTS - SEATS, soldOut);
+
+        given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .body("quantity", equalTo(0));
+    }
+
+    @Test
+    public void testConcurrentDuplicateBookings_OneCreated() throws Exception {
+        String newCommodity = """
+            {
+                "name": "Double Click Flight",
+                "description": "Duplicate booking race test flight",
+                "price": 59.99,
+                "quantity": %d
+            }
+            """.formatted(SEATS);
+
+        Integer commodityId = given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        // The same customer submits the same booking many times at once
+        ExecutorService executor = Executors.newFixedThreadPool(SEATS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < SEATS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return given()
+                    .contentType(ContentType.JSON)
+                    .queryParam("customerId", 1)
+                    .queryParam("commodityId", commodityId)
+                    .when().post("/bookings")
+                    .then()
+                    .extract().statusCode();
+            }));
+        }
+
+        start.countDown();
+        int created = 0;
+        int conflicts = 0;
+        for (Future<Integer> result : results) {
+            int status = result.get();
+            if (status == 201) {
+                created++;
+            } else if (status == 409) {
+                conflicts++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, created);
+        assertEquals(SEATS - 1, conflicts);
+
+        // Seats taken by the rejected duplicates are given back by their rollback
+        given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .body("quantity", equalTo(SEATS - 1));
+    }
+}
@@ -3,9 +3,20 @@ package uk.ac.newcastle.enterprisemiddleware.rest;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
 import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.util.ColumnarReader;
+import uk.ac.newcastle.enterprisemiddleware.util.CsvWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * REST Assured tests for Booking endpoints.
@@ -25,6 +36,7 @@ public class BookingResourceTest {
     @Test
     public void testGetBookingById() {
         given()
+            .queryParam("expand", "customer,commodity")
             .when().get("/bookings/1")
             .then()
             .statusCode(200)
@@ -33,6 +45,29 @@ public class BookingResourceTest {
             .body("commodity", notNullValue());
     }
 
+    @Test
+    public void testGetBookingById_Projection() {
+        given()
+            .when().get("/bookings/1")
+            .then()
+            .statusCode(200)
+            .body("id", equalTo(1))
+            .body("customerId", equalTo(1))
+            .body("commodityId", equalTo(1))
+            .body("seats", equalTo(1))
+            .body("$", not(hasKey("customer")))
+            .body("$", not(hasKey("commodity")));
+    }
+
+    @Test
+    public void testGetBookingById_InvalidExpand() {
+        given()
+            .queryParam("expand", "invoices")
+            .when().get("/bookings/1")
+            .then()
+            .statusCode(400);
+    }
+
     @Test
     public void testGetBookingById_NotFound() {
         given()
@@ -186,5 +221,265 @@ public class BookingResourceTest {
             .statusCode(200)
             .body("$.size()", greaterThanOrEqualTo(0));
     }
-}
 
+    @Test
+    public void testGetBookingsByCustomerId_ExpandCommodity() {
+        given()
+            .queryParam("expand", "commodity")
+            .when().get("/bookings/customer/1")
+            .then()
+            .statusCode(200)
+            .body("customerId", everyItem(equalTo(1)))
+            .body("commodity.id", hasItem(1))
+            .body("customer", everyItem(nullValue()));
+    }
+
+    @Test
+    public void testCreateBookingsBatch() {
+        String newCommodity = """
+            {
+                "name": "Batch Flight",
+                "description": "Batch booking test flight",
+                "price": 249.99,
+                "quantity": 2
+            }
+            """;
+
+        Integer commodityId = given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        Integer[] customerIds = new Integer[3];
+        for (int i = 0; i < customerIds.length; i++) {
+            String newCustomer = """
+                {
+                    "firstName": "Batch",
+                    "lastName": "Customer",
+                    "email": "batch.customer%d@test.com",
+                    "phoneNumber": "5552223333"
+                }
+                """.formatted(i);
+
+            customerIds[i] = given()
+                .contentType(ContentType.JSON)
+                .body(newCustomer)
+                .when().post("/customers")
+                .then()
+                .statusCode(201)
+                .extract().path("id");
+        }
+
+        String batch = """
+            [
+                {"customerId": %d, "commodityId": %d},
+                {"customerId": %d, "commodityId": %d},
+                {"customerId": %d, "commodityId": %d},
+                {"customerId": 99999, "commodityId": %d},
+                {"customerId": %d, "commodityId": %d}
+            ]
+            """.formatted(customerIds[0], commodityId, customerIds[0], commodityId,
+                customerIds[1], commodityId, commodityId, customerIds[2], commodityId);
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(batch)
+            .when().post("/bookings/batch")
+            .then()
+            .statusCode(200)
+            .body("succeeded", equalTo(2))
+            .body("failed", equalTo(3))
+            .body("results[0].status", equalTo("CREATED"))
+            .body("results[0].bookingId", notNullValue())
+            .body("results[1].status", equalTo("FAILED"))
+            .body("results[2].status", equalTo("CREATED"))
+            .body("results[3].message", containsString("not found"))
+            .body("results[4].message", containsString("out of stock"));
+    }
+
+    @Test
+    public void testCreateBookingsBatch_Empty() {
+        given()
+            .contentType(ContentType.JSON)
+            .body("[]")
+            .when().post("/bookings/batch")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    public void testCreateAndCancelMultiSeatBooking() {
+        String newCommodity = """
+            {
+                "name": "Family Flight",
+                "description": "Multi-seat booking test flight",
+                "price": 329.99,
+                "quantity": 5
+            }
+            """;
+
+        Integer commodityId = given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        Integer bookingId = given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", 2)
+            .queryParam("commodityId", commodityId)
+            .queryParam("seats", 4)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201)
+            .body("seats", equalTo(4))
+            .body("commodity.quantity", equalTo(1))
+            .extract().path("id");
+
+        // Not enough seats left for another group of two
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", 1)
+            .queryParam("commodityId", commodityId)
+            .queryParam("seats", 2)
+            .when().post("/bookings")
+            .then()
+            .statusCode(400);
+
+        given()
+            .contentType(ContentType.JSON)
+            .when().delete("/bookings/" + bookingId)
+            .then()
+            .statusCode(204);
+
+        given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .body("quantity", equalTo(5));
+    }
+
+    @Test
+    public void testExportBookings() {
+        String export = given()
+            .when().get("/bookings/export")
+            .then()
+            .statusCode(200)
+            .contentType("application/x-ndjson")
+            .extract().asString();
+
+        // One flat booking object per line, newline terminated
+        String[] lines = export.split("\n");
+        assertTrue(lines.length >= 2);
+        for (String line : lines) {
+            assertTrue(line.matches("\\{\"id\":\\d+,\"bookingDate\":\"[-0-9]+\",\"customerId\":\\d+,"
+                    + "\"commodityId\":\\d+,\"seats\":\\d+}"), line);
+        }
+        assertTrue(export.endsWith("\n"));
+    }
+
+    @Test
+    public void testExportBookings_Csv() {
+        String export = given()
+            .queryParam("format", "csv")
+            .when().get("/bookings/export")
+            .then()
+            .statusCode(200)
+            .contentType("text/csv")
+            .extract().asString();
+
+        String[] lines = export.split("\n");
+        assertEquals("id,bookingDate,customerId,commodityId,seats,price", lines[0]);
+        assertTrue(lines.length >= 3);
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue(lines[i].matches("\\d+,[-0-9]+,\\d+,\\d+,\\d+,[0-9]+(\\.[0-9]+)?"), lines[i]);
+        }
+    }
+
+    @Test
+    public void testExportBookings_Columnar() throws IOException {
+        List<String> csv = List.of(given()
+            .queryParam("format", "csv")
+            .when().get("/bookings/export")
+            .then()
+            .statusCode(200)
+            .extract().asString().split("\n"));
+
+        byte[] columnar = given()
+            .queryParam("format", "columnar")
+            .when().get("/bookings/export")
+            .then()
+            .statusCode(200)
+            .contentType("application/octet-stream")
+            .extract().asByteArray();
+
+        // Decoded back into CSV lines, the columnar export holds the same rows
+        assertEquals(csv, decodeColumnar(columnar));
+    }
+
+    @Test
+    public void testExportBookings_UnknownFormat() {
+        given()
+            .queryParam("format", "xml")
+            .when().get("/bookings/export")
+            .then()
+            .statusCode(400);
+    }
+
+    /**
+     * Decode a columnar export into CSV lines, header first.
+     */
+    private static List<String> decodeColumnar(byte[] bytes) throws IOException {
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(bytes));
+        List<String> lines = new ArrayList<>(List.of(String.join(",", reader.getColumns().keySet())));
+        for (Object[] row : reader.readAll()) {
+            lines.add(Arrays.stream(row).map(CsvWriter::format).collect(Collectors.joining(",")));
+        }
+        return lines;
+    }
+
+    @Test
+    public void testDeleteCommodity_DeletesBookings() {
+        String newCommodity = """
+            {
+                "name": "Cancelled Route",
+                "description": "Bulk delete test flight",
+                "price": 119.99,
+                "quantity": 5
+            }
+            """;
+
+        Integer commodityId = given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        Integer bookingId = given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", 1)
+            .queryParam("commodityId", commodityId)
+            .queryParam("seats", 2)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        given()
+            .when().delete("/commodities/" + commodityId)
+            .then()
+            .statusCode(204);
+
+        given()
+            .when().get("/bookings/" + bookingId)
+            .then()
+            .statusCode(404);
+    }
+}
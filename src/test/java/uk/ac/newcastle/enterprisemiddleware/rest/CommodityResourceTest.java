@@ -0,0 +1,451 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * REST Assured tests for Commodity endpoints.
+ */
+@QuarkusTest
+public class CommodityResourceTest {
+
+    private Integer createCommodity(String name, int quantity) {
+        String newCommodity = """
+            {
+                "name": "%s",
+                "description": "Commodity cache test flight",
+                "price": 79.99,
+                "quantity": %d
+            }
+            """.formatted(name, quantity);
+
+        return given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+    }
+
+    @Test
+    public void testGetCommodityById_CachedReadsSeeUpdates() {
+        Integer commodityId = createCommodity("Cached Flight", 4);
+
+        // The second read is served from the cache
+        for (int i = 0; i < 2; i++) {
+            given()
+                .when().get("/commodities/" + commodityId)
+                .then()
+                .statusCode(200)
+                .body("quantity", equalTo(4));
+        }
+
+        String updatedCommodity = """
+            {
+                "name": "Cached Flight (retimed)",
+                "description": "Commodity cache test flight",
+                "price": 84.99,
+                "quantity": 6
+            }
+            """;
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(updatedCommodity)
+            .when().put("/commodities/" + commodityId)
+            .then()
+            .statusCode(200);
+
+        given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .body("name", equalTo("Cached Flight (retimed)"))
+            .body("quantity", equalTo(6));
+    }
+
+    @Test
+    public void testGetCommodityById_CachedReadsSeeInventoryChanges() {
+        Integer commodityId = createCommodity("Cached Inventory Flight", 4);
+
+        given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .body("quantity", equalTo(4));
+
+        Integer bookingId = given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", 1)
+            .queryParam("commodityId", commodityId)
+            .queryParam("seats", 3)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .body("quantity", equalTo(1));
+
+        given()
+            .when().delete("/bookings/" + bookingId)
+            .then()
+            .statusCode(204);
+
+        given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .body("quantity", equalTo(4));
+    }
+
+    @Test
+    public void testGetCommodityById_DeletedIsNotServedFromCache() {
+        Integer commodityId = createCommodity("Cached Deleted Flight", 2);
+
+        given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200);
+
+        given()
+            .when().delete("/commodities/" + commodityId)
+            .then()
+            .statusCode(204);
+
+        given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(404);
+    }
+
+    @Test
+    public void testCommodityCacheMetrics() {
+        Integer commodityId = createCommodity("Cached Metrics Flight", 1);
+        given().when().get("/commodities/" + commodityId).then().statusCode(200);
+        given().when().get("/commodities/" + commodityId).then().statusCode(200);
+
+        given()
+            .when().get("/q/metrics")
+            .then()
+            .statusCode(200)
+            .body(containsString("cache_gets_total{cache=\"commodities\",result=\"hit\"}"))
+            .body(containsString("cache_evictions_total{cache=\"commodities\"}"))
+            .body(containsString("booking_commodity_cache_hit_ratio"));
+    }
+
+    @Test
+    public void testSecondLevelCacheMetrics() {
+        given()
+            .when().get("/commodities/available")
+            .then()
+            .statusCode(200);
+
+        given()
+            .when().get("/q/metrics")
+            .then()
+            .statusCode(200)
+            .body(containsString("hibernate_second_level_cache_requests_total"))
+            .body(containsString("hibernate_cache_query_requests_total"));
+    }
+
+    @Test
+    public void testGetAvailableCommodities_NotModifiedUntilCommodityChanges() {
+        Integer commodityId = createCommodity("Snapshot Flight", 2);
+        String path = "/commodities/available?after=" + (commodityId - 1);
+
+        String etag = given()
+            .when().get(path)
+            .then()
+            .statusCode(200)
+            .header("ETag", notNullValue())
+            .body("id", hasItem(commodityId))
+            .extract().header("ETag");
+
+        given()
+            .header("If-None-Match", etag)
+            .when().get(path)
+            .then()
+            .statusCode(304);
+
+        // Selling the last seats changes the catalog, so the old ETag no longer matches
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", 2)
+            .queryParam("commodityId", commodityId)
+            .queryParam("seats", 2)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201);
+
+        String changed = given()
+            .header("If-None-Match", etag)
+            .when().get(path)
+            .then()
+            .statusCode(200)
+            .body("id", not(hasItem(commodityId)))
+            .extract().header("ETag");
+
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    public void testGetAllCommodities_OtherPageChangeKeepsETag() {
+        Integer first = createCommodity("Snapshot Page Flight", 3);
+        Integer other = createCommodity("Snapshot Other Page Flight", 3);
+        String path = "/commodities?limit=1&after=" + (first - 1);
+
+        String etag = given()
+            .when().get(path)
+            .then()
+            .statusCode(200)
+            .body("id", hasItem(first))
+            .extract().header("ETag");
+
+        // A seat sold on a commodity outside the page rebuilds it with the same content
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", 2)
+            .queryParam("commodityId", other)
+            .queryParam("seats", 1)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201);
+
+        given()
+            .header("If-None-Match", etag)
+            .when().get(path)
+            .then()
+            .statusCode(304);
+    }
+
+    @Test
+    public void testGetAllCommodities_SnapshotSeesNewCommodity() {
+        Integer first = createCommodity("Snapshot List Flight", 1);
+        String path = "/commodities?after=" + (first - 1);
+
+        String etag = given()
+            .when().get(path)
+            .then()
+            .statusCode(200)
+            .body("id", hasItem(first))
+            .extract().header("ETag");
+
+        Integer second = createCommodity("Snapshot List Flight 2", 1);
+
+        given()
+            .header("If-None-Match", etag)
+            .when().get(path)
+            .then()
+            .statusCode(200)
+            .body("id", hasItems(first, second));
+    }
+
+    @Test
+    public void testSearchCommodities_RankedAndTypoTolerant() {
+        Integer byName = createCommodity("Zanzibar Express", 3);
+
+        String mentionsInDescription = """
+            {
+                "name": "Island Hopper",
+                "description": "Connects via Zanzibar",
+                "price": 129.99,
+                "quantity": 3
+            }
+            """;
+        Integer byDescription = given()
+            .contentType(ContentType.JSON)
+            .body(mentionsInDescription)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        given()
+            .queryParam("q", "zanzibar")
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(200)
+            .body("id", contains(byName, byDescription));
+
+        given()
+            .queryParam("q", "Zanzibr")
+            .queryParam("limit", 1)
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(200)
+            .body("id", contains(byName));
+    }
+
+    @Test
+    public void testSearchCommodities_FollowsUpdateAndDelete() {
+        Integer commodityId = createCommodity("Quokka Air", 2);
+
+        given()
+            .queryParam("q", "quokka")
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(200)
+            .body("id", hasItem(commodityId));
+
+        String renamed = """
+            {
+                "name": "Wombat Air",
+                "description": "Commodity cache test flight",
+                "price": 79.99,
+                "quantity": 2
+            }
+            """;
+        given()
+            .contentType(ContentType.JSON)
+            .body(renamed)
+            .when().put("/commodities/" + commodityId)
+            .then()
+            .statusCode(200);
+
+        given()
+            .queryParam("q", "quokka")
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(200)
+            .body("id", not(hasItem(commodityId)));
+
+        given()
+            .queryParam("q", "wombat")
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(200)
+            .body("id", hasItem(commodityId));
+
+        given()
+            .when().delete("/commodities/" + commodityId)
+            .then()
+            .statusCode(204);
+
+        given()
+            .queryParam("q", "wombat")
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(200)
+            .body("id", not(hasItem(commodityId)));
+    }
+
+    @Test
+    public void testSearchCommodities_MissingQuery() {
+        given()
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    public void testImportCommodities_Csv() {
+        String csv = """
+            quantity,name,price,description
+            12,Import Flight Oslo,149.50,"Direct, with lounge access"
+            ,Import Flight Missing Quantity,99.00,No seats given
+
+            5,Import Flight Bad Price,cheap,Price is not a number
+            8,"Import Flight ""Quoted"" Bergen",120.00,Quoted name
+            """;
+
+        given()
+            .contentType("text/csv")
+            .body(csv)
+            .when().post("/commodities/import")
+            .then()
+            .statusCode(200)
+            .body("imported", equalTo(2))
+            .body("failed", equalTo(2))
+            .body("errors.row", contains(2, 4))
+            .body("errors[0].message", containsString("quantity"))
+            .body("errors[1].message", containsString("not a number"));
+
+        // Imported commodities are searchable and carry every column
+        given()
+            .queryParam("q", "import flight oslo")
+            .queryParam("limit", 1)
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(200)
+            .body("[0].description", equalTo("Direct, with lounge access"))
+            .body("[0].quantity", equalTo(12));
+
+        given()
+            .queryParam("q", "bergen")
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(200)
+            .body("name", hasItem("Import Flight \"Quoted\" Bergen"));
+    }
+
+    @Test
+    public void testImportCommodities_Ndjson() {
+        String ndjson = """
+            {"name": "Import Flight Lima", "description": "NDJSON import", "price": 310.0, "quantity": 4}
+            {"name": "Import Flight Quito", "description": "NDJSON import", "price": -1, "quantity": 4}
+            {"name": "Import Flight Cusco", "description": "NDJSON import", "price": 220.0,
+            {"name": "Import Flight Bogota", "description": "NDJSON import", "price": 280.0, "quantity": 6}
+            """;
+
+        given()
+            .contentType("application/x-ndjson")
+            .body(ndjson.getBytes(StandardCharsets.UTF_8))
+            .when().post("/commodities/import")
+            .then()
+            .statusCode(200)
+            .body("imported", equalTo(2))
+            .body("failed", equalTo(2))
+            .body("errors.row", contains(2, 3))
+            .body("errors[0].message", containsString("price"))
+            .body("errors[1].message", containsString("Invalid JSON"));
+    }
+
+    @Test
+    public void testImportCommodities_CsvMissingColumn() {
+        given()
+            .contentType("text/csv")
+            .body("name,price\nNo Quantity Flight,10.0\n")
+            .when().post("/commodities/import")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    public void testImportCommodities_ManyRowsInChunks() {
+        int rows = 2_000;
+        StringBuilder csv = new StringBuilder("name,description,price,quantity\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Bulk Import Flight ").append(i).append(",Season schedule,75.00,30\n");
+        }
+
+        given()
+            .contentType("text/csv")
+            .body(csv.toString())
+            .when().post("/commodities/import")
+            .then()
+            .statusCode(200)
+            .body("imported", equalTo(rows))
+            .body("failed", equalTo(0));
+
+        // The last chunk was committed too
+        given()
+            .queryParam("q", "bulk import flight " + (rows - 1))
+            .queryParam("limit", 1)
+            .when().get("/commodities/search")
+            .then()
+            .statusCode(200)
+            .body("[0].name", equalTo("Bulk Import Flight " + (rows - 1)));
+    }
+}
@@ -2,10 +2,19 @@ package uk.ac.newcastle.enterprisemiddleware.rest;
 
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * REST Assured tests for Customer endpoints.
@@ -200,5 +209,376 @@ public class CustomerResourceTest {
             .then()
             .statusCode(404);
     }
-}
 
+    @Test
+    public void testGetAllCustomers_Paginated() {
+        List<Integer> created = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String newCustomer = """
+                {
+                    "firstName": "Paige",
+                    "lastName": "Reader",
+                    "email": "paige.reader%d@test.com",
+                    "phoneNumber": "5550001111"
+                }
+                """.formatted(i);
+
+            created.add(given()
+                .contentType(ContentType.JSON)
+                .body(newCustomer)
+                .when().post("/customers")
+                .then()
+                .statusCode(201)
+                .extract().path("id"));
+        }
+
+        // Follow the cursor two customers at a time until the last page
+        List<Integer> seen = new ArrayList<>();
+        String after = null;
+        do {
+            ExtractableResponse<Response> page = given()
+                .queryParam("limit", 2)
+                .queryParams(after != null ? Map.of("after", after) : Map.of())
+                .when().get("/customers")
+                .then()
+                .statusCode(200)
+                .body("$.size()", lessThanOrEqualTo(2))
+                .extract();
+            List<Integer> ids = page.path("id");
+            seen.addAll(ids);
+            after = page.header("X-Next-Cursor");
+            if (after != null) {
+                assertEquals(ids.get(ids.size() - 1).toString(), after);
+                assertTrue(page.header("Link").contains("rel=\"next\""));
+            }
+        } while (after != null);
+
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1) < seen.get(i), "Pages must be in ascending id order without repeats");
+        }
+        assertTrue(seen.containsAll(created));
+    }
+
+    @Test
+    public void testGetAllCustomers_InvalidLimit() {
+        given()
+            .queryParam("limit", 0)
+            .when().get("/customers")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    public void testDeleteCustomer_ReturnsBookedSeats() {
+        String newCustomer = """
+            {
+                "firstName": "Grace",
+                "lastName": "Hopper",
+                "email": "grace.hopper@test.com",
+                "phoneNumber": "5557778888"
+            }
+            """;
+
+        Integer customerId = given()
+            .contentType(ContentType.JSON)
+            .body(newCustomer)
+            .when().post("/customers")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        List<Integer> commodityIds = new ArrayList<>();
+        for (int seats = 2; seats <= 3; seats++) {
+            String newCommodity = """
+                {
+                    "name": "Deleted Customer Flight",
+                    "description": "Bulk delete test flight",
+                    "price": 89.99,
+                    "quantity": 5
+                }
+                """;
+
+            Integer commodityId = given()
+                .contentType(ContentType.JSON)
+                .body(newCommodity)
+                .when().post("/commodities")
+                .then()
+                .statusCode(201)
+                .extract().path("id");
+            commodityIds.add(commodityId);
+
+            given()
+                .contentType(ContentType.JSON)
+                .queryParam("customerId", customerId)
+                .queryParam("commodityId", commodityId)
+                .queryParam("seats", seats)
+                .when().post("/bookings")
+                .then()
+                .statusCode(201);
+        }
+
+        given()
+            .when().delete("/customers/" + customerId)
+            .then()
+            .statusCode(204);
+
+        // Bookings are gone and every seat is back on its commodity
+        given()
+            .when().get("/bookings/customer/" + customerId)
+            .then()
+            .statusCode(200)
+            .body("$.size()", equalTo(0));
+        for (Integer commodityId : commodityIds) {
+            given()
+                .when().get("/commodities/" + commodityId)
+                .then()
+                .statusCode(200)
+                .body("quantity", equalTo(5));
+        }
+    }
+
+    private Integer createCustomer(String email) {
+        String newCustomer = """
+            {
+                "firstName": "Cache",
+                "lastName": "Tester",
+                "email": "%s",
+                "phoneNumber": "5551112222"
+            }
+            """.formatted(email);
+
+        return given()
+            .contentType(ContentType.JSON)
+            .body(newCustomer)
+            .when().post("/customers")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+    }
+
+    @Test
+    public void testGetCustomerById_CachedReadsSeeEmailChange() {
+        Integer customerId = createCustomer("cached.before@test.com");
+
+        // The second read is served from the cache
+        for (int i = 0; i < 2; i++) {
+            given()
+                .when().get("/customers/" + customerId)
+                .then()
+                .statusCode(200)
+                .body("email", equalTo("cached.before@test.com"));
+        }
+
+        String updatedCustomer = """
+            {
+                "firstName": "Cache",
+                "lastName": "Tester",
+                "email": "cached.after@test.com",
+                "phoneNumber": "5551112222"
+            }
+            """;
+
+        given()
+            .contentType(ContentType.JSON)
+            .body(updatedCustomer)
+            .when().put("/customers/" + customerId)
+            .then()
+            .statusCode(200);
+
+        given()
+            .when().get("/customers/" + customerId)
+            .then()
+            .statusCode(200)
+            .body("email", equalTo("cached.after@test.com"));
+
+        // The new email is taken and the old one is free again
+        given()
+            .contentType(ContentType.JSON)
+            .body(updatedCustomer)
+            .when().post("/customers")
+            .then()
+            .statusCode(409);
+
+        createCustomer("cached.before@test.com");
+    }
+
+    @Test
+    public void testDeleteCustomer_CachedCustomerCannotBook() {
+        Integer customerId = createCustomer("cached.deleted@test.com");
+
+        // Cache the customer through the booking path
+        Integer commodityId = given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"Cached Customer Flight\", \"description\": \"Customer cache test\", \"price\": 59.99, \"quantity\": 5}")
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", customerId)
+            .queryParam("commodityId", commodityId)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201);
+
+        given()
+            .when().delete("/customers/" + customerId)
+            .then()
+            .statusCode(204);
+
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", customerId)
+            .queryParam("commodityId", commodityId)
+            .when().post("/bookings")
+            .then()
+            .statusCode(404);
+    }
+
+    @Test
+    public void testCustomerCacheMetrics() {
+        Integer customerId = createCustomer("cached.metrics@test.com");
+        given().when().get("/customers/" + customerId).then().statusCode(200);
+        given().when().get("/customers/" + customerId).then().statusCode(200);
+
+        given()
+            .when().get("/q/metrics")
+            .then()
+            .statusCode(200)
+            .body(containsString("cache_gets_total{cache=\"customers\",result=\"hit\"}"))
+            .body(containsString("cache_size{cache=\"customer-emails\"}"));
+    }
+
+    @Test
+    public void testImportCustomers_CsvUpserts() {
+        Integer existingId = createCustomer("import.existing@test.com");
+        createCustomer("import.same@test.com");
+        String csv = """
+            email,firstName,lastName,phoneNumber
+            import.new@test.com,New,Importer,5553330001
+            import.existing@test.com,Updated,Importer,5553330002
+            import.same@test.com,Cache,Tester,5551112222
+            import.bad@test.com,Bad,Phone,123
+            import.new@test.com,Newer,Importer,5553330001
+            """;
+
+        given()
+            .contentType("text/csv")
+            .body(csv)
+            .when().post("/customers/import")
+            .then()
+            .statusCode(200)
+            .body("inserted", equalTo(1))
+            .body("updated", equalTo(1))
+            .body("unchanged", equalTo(1))
+            .body("duplicates", equalTo(1))
+            .body("rejected", equalTo(1))
+            .body("checkpoint", equalTo(5))
+            .body("complete", equalTo(true))
+            .body("errors.row", contains(4))
+            .body("errors[0].message", containsString("phoneNumber"));
+
+        // The cached customer is replaced by the imported row
+        given()
+            .when().get("/customers/" + existingId)
+            .then()
+            .statusCode(200)
+            .body("firstName", equalTo("Updated"))
+            .body("phoneNumber", equalTo("5553330002"));
+
+        // Importing the same rows again changes nothing
+        given()
+            .contentType("text/csv")
+            .body(csv)
+            .when().post("/customers/import")
+            .then()
+            .statusCode(200)
+            .body("inserted", equalTo(0))
+            .body("updated", equalTo(0))
+            .body("unchanged", equalTo(3))
+            .body("duplicates", equalTo(1))
+            .body("rejected", equalTo(1));
+    }
+
+    @Test
+    public void testImportCustomers_DuplicateNewEmailInsertedOnce() {
+        String ndjson = """
+            {"firstName": "First", "lastName": "Duplicate", "email": "import.duplicate@test.com", "phoneNumber": "5556660001"}
+            {"firstName": "Second", "lastName": "Duplicate", "email": "import.duplicate@test.com", "phoneNumber": "5556660002"}
+            {"firstName": "Third", "lastName": "Duplicate", "email": "import.duplicate@test.com", "phoneNumber": "5556660003"}
+            """;
+
+        given()
+            .contentType("application/x-ndjson")
+            .body(ndjson.getBytes(StandardCharsets.UTF_8))
+            .when().post("/customers/import")
+            .then()
+            .statusCode(200)
+            .body("inserted", equalTo(1))
+            .body("updated", equalTo(0))
+            .body("unchanged", equalTo(0))
+            .body("duplicates", equalTo(2))
+            .body("checkpoint", equalTo(3));
+
+        // The last row for the email won, so importing it again changes nothing
+        given()
+            .contentType("application/x-ndjson")
+            .body(ndjson.lines().skip(2).findFirst().orElseThrow().getBytes(StandardCharsets.UTF_8))
+            .when().post("/customers/import")
+            .then()
+            .statusCode(200)
+            .body("unchanged", equalTo(1))
+            .body("duplicates", equalTo(0));
+    }
+
+    @Test
+    public void testImportCustomers_NdjsonResumesFromOffset() {
+        String ndjson = """
+            {"firstName": "Skipped", "lastName": "Row", "email": "import.skipped@test.com", "phoneNumber": "5554440001"}
+            {"firstName": "Skipped", "lastName": "Row",
+            {"firstName": "Resumed", "lastName": "Row", "email": "import.resumed@test.com", "phoneNumber": "5554440003"}
+            """;
+
+        given()
+            .contentType("application/x-ndjson")
+            .queryParam("offset", 2)
+            .body(ndjson.getBytes(StandardCharsets.UTF_8))
+            .when().post("/customers/import")
+            .then()
+            .statusCode(200)
+            .body("inserted", equalTo(1))
+            .body("rejected", equalTo(0))
+            .body("checkpoint", equalTo(3))
+            .body("complete", equalTo(true));
+
+        // Rows before the offset were not imported, so the skipped email is still free
+        given()
+            .contentType(ContentType.JSON)
+            .body("""
+                {"firstName": "Skipped", "lastName": "Row", "email": "import.skipped@test.com", "phoneNumber": "5554440001"}
+                """)
+            .when().post("/customers")
+            .then()
+            .statusCode(201);
+    }
+
+    @Test
+    public void testImportCustomers_BadRequest() {
+        given()
+            .contentType("text/csv")
+            .body("email,firstName\nimport.partial@test.com,Partial\n")
+            .when().post("/customers/import")
+            .then()
+            .statusCode(400);
+
+        given()
+            .contentType("text/csv")
+            .queryParam("offset", -1)
+            .body("email,firstName,lastName,phoneNumber\n")
+            .when().post("/customers/import")
+            .then()
+            .statusCode(400);
+    }
+}
@@ -0,0 +1,173 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * REST Assured tests for Idempotency-Key handling on booking creation.
+ */
+@QuarkusTest
+public class IdempotencyKeyTest {
+
+    private static final int CLIENTS = 16;
+
+    private Integer createCommodity(int quantity) {
+        String newCommodity = """
+            {
+                "name": "Retry Flight",
+                "description": "Idempotency test flight",
+                "price": 149.99,
+                "quantity": %d
+            }
+            """.formatted(quantity);
+
+        return given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+    }
+
+    private ExtractableResponse<Response> book(String key, int customerId, Integer commodityId) {
+        return given()
+            .contentType(ContentType.JSON)
+            .header("Idempotency-Key", key)
+            .queryParam("customerId", customerId)
+            .queryParam("commodityId", commodityId)
+            .when().post("/bookings")
+            .then()
+            .extract();
+    }
+
+    private int quantityOf(Integer commodityId) {
+        return given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .extract().path("quantity");
+    }
+
+    @Test
+    public void testRetryReturnsOriginalBooking() {
+        Integer commodityId = createCommodity(5);
+        String key = UUID.randomUUID().toString();
+
+        ExtractableResponse<Response> first = book(key, 1, commodityId);
+        assertEquals(201, first.statusCode());
+
+        // The retry is answered from the stored response instead of creating a duplicate (409)
+        given()
+            .contentType(ContentType.JSON)
+            .header("Idempotency-Key", key)
+            .queryParam("customerId", 1)
+            .queryParam("commodityId", commodityId)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201)
+            .header("Idempotent-Replayed", "true")
+            .body("id", equalTo(first.path("id")));
+
+        assertEquals(4, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testRejectedRequestIsReplayed() {
+        Integer commodityId = createCommodity(1);
+        String key = UUID.randomUUID().toString();
+
+        given()
+            .contentType(ContentType.JSON)
+            .header("Idempotency-Key", key)
+            .queryParam("customerId", 1)
+            .queryParam("commodityId", commodityId)
+            .queryParam("seats", 2)
+            .when().post("/bookings")
+            .then()
+            .statusCode(400);
+
+        // The thrown 400 was stored like a returned response, so the retry does not run again
+        given()
+            .contentType(ContentType.JSON)
+            .header("Idempotency-Key", key)
+            .queryParam("customerId", 1)
+            .queryParam("commodityId", commodityId)
+            .queryParam("seats", 2)
+            .when().post("/bookings")
+            .then()
+            .statusCode(400)
+            .header("Idempotent-Replayed", "true");
+
+        assertEquals(1, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testKeyReusedForDifferentRequest() {
+        Integer commodityId = createCommodity(5);
+        String key = UUID.randomUUID().toString();
+
+        assertEquals(201, book(key, 1, commodityId).statusCode());
+        assertEquals(422, book(key, 2, commodityId).statusCode());
+        assertEquals(4, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testConcurrentRequestsWithSameKey_BookOnce() throws Exception {
+        Integer commodityId = createCommodity(5);
+        String key = UUID.randomUUID().toString();
+
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ExtractableResponse<Response>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CLIENTS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return book(key, 2, commodityId);
+                }));
+            }
+            start.countDown();
+
+            Object bookingId = null;
+            for (Future<ExtractableResponse<Response>> result : results) {
+                ExtractableResponse<Response> response = result.get();
+                assertEquals(201, response.statusCode());
+                if (bookingId == null) {
+                    bookingId = response.path("id");
+                }
+                assertEquals(bookingId, response.path("id"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(4, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testMetricsExposed() {
+        book(UUID.randomUUID().toString(), 1, createCommodity(1));
+
+        given()
+            .when().get("/q/metrics")
+            .then()
+            .statusCode(200)
+            .body(containsString("booking_idempotency_requests_total{result=\"miss\""));
+    }
+}
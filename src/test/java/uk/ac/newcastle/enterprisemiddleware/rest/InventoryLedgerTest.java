@@ -0,0 +1,177 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * REST Assured tests for booking admission served from the in-memory inventory ledger.
+ */
+@QuarkusTest
+@TestProfile(InventoryLedgerTest.LedgerEnabled.class)
+public class InventoryLedgerTest {
+
+    public static class LedgerEnabled implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "booking.inventory.ledger.enabled", "true",
+                    "booking.inventory.ledger.flush-interval", "1s");
+        }
+    }
+
+    private static final int CLIENTS = 32;
+    private static final int SEATS = 5;
+
+    @Test
+    public void testLedgerBookings_NoOversellingAndFlushed() throws Exception {
+        String newCommodity = """
+            {
+                "name": "Ledger Flight",
+                "description": "Ledger test flight",
+                "price": 149.99,
+                "quantity": %d
+            }
+            """.formatted(SEATS);
+
+        Integer commodityId = given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        List<Integer> customerIds = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            String newCustomer = """
+                {
+                    "firstName": "Ledger",
+                    "lastName": "Client",
+                    "email": "ledger.client%d@test.com",
+                    "phoneNumber": "5551110000"
+                }
+                """.formatted(i);
+
+            customerIds.add(given()
+                .contentType(ContentType.JSON)
+                .body(newCustomer)
+                .when().post("/customers")
+                .then()
+                .statusCode(201)
+                .extract().path("id"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (Integer customerId : customerIds) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return given()
+                    .contentType(ContentType.JSON)
+                    .queryParam("customerId", customerId)
+                    .queryParam("commodityId", commodityId)
+                    .when().post("/bookings")
+                    .then()
+                    .extract().statusCode();
+            }));
+        }
+        start.countDown();
+        int created = 0;
+        for (Future<Integer> result : results) {
+            if (result.get() == 201) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(SEATS, created);
+
+        // The write-behind flush eventually brings the quantity column to zero
+        int quantity = -1;
+        for (int attempt = 0; attempt < 50 && quantity != 0; attempt++) {
+            Thread.sleep(100);
+            quantity = given()
+                .when().get("/commodities/" + commodityId)
+                .then()
+                .statusCode(200)
+                .extract().path("quantity");
+        }
+        assertEquals(0, quantity);
+    }
+
+    @Test
+    public void testDeleteCustomer_ReleasesSeatsToLedger() throws Exception {
+        String newCommodity = """
+            {
+                "name": "Ledger Delete Flight",
+                "description": "Ledger bulk delete test flight",
+                "price": 129.99,
+                "quantity": %d
+            }
+            """.formatted(SEATS);
+
+        Integer commodityId = given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        String newCustomer = """
+            {
+                "firstName": "Ledger",
+                "lastName": "Leaver",
+                "email": "ledger.leaver@test.com",
+                "phoneNumber": "5551112222"
+            }
+            """;
+
+        Integer customerId = given()
+            .contentType(ContentType.JSON)
+            .body(newCustomer)
+            .when().post("/customers")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", customerId)
+            .queryParam("commodityId", commodityId)
+            .queryParam("seats", SEATS)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201);
+
+        given()
+            .when().delete("/customers/" + customerId)
+            .then()
+            .statusCode(204);
+
+        // The released seats can be booked again straight away from the ledger
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", 1)
+            .queryParam("commodityId", commodityId)
+            .queryParam("seats", SEATS)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201);
+    }
+}
@@ -0,0 +1,137 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * REST Assured tests for seat hold endpoints.
+ */
+@QuarkusTest
+@TestProfile(SeatHoldResourceTest.ShortHolds.class)
+public class SeatHoldResourceTest {
+
+    public static class ShortHolds implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("booking.holds.ttl", "2s");
+        }
+    }
+
+    private Integer createCommodity(int quantity) {
+        String newCommodity = """
+            {
+                "name": "Hold Flight",
+                "description": "Seat hold test flight",
+                "price": 199.99,
+                "quantity": %d
+            }
+            """.formatted(quantity);
+
+        return given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+    }
+
+    private int quantityOf(Integer commodityId) {
+        return given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .extract().path("quantity");
+    }
+
+    @Test
+    public void testPlaceHold_RedeemAndRelease() {
+        Integer commodityId = createCommodity(3);
+
+        String holdId = given()
+            .contentType(ContentType.JSON)
+            .body("{\"seats\": 2}")
+            .when().post("/commodities/" + commodityId + "/holds")
+            .then()
+            .statusCode(201)
+            .body("commodityId", equalTo(commodityId))
+            .body("seats", equalTo(2))
+            .body("expiresAt", notNullValue())
+            .extract().path("id");
+
+        assertEquals(1, quantityOf(commodityId));
+
+        // Redeeming a held seat does not take another one from the commodity
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", 1)
+            .queryParam("commodityId", commodityId)
+            .queryParam("holdId", holdId)
+            .when().post("/bookings")
+            .then()
+            .statusCode(201);
+
+        assertEquals(1, quantityOf(commodityId));
+
+        // Releasing the hold returns the one seat that was not redeemed
+        given()
+            .when().delete("/commodities/" + commodityId + "/holds/" + holdId)
+            .then()
+            .statusCode(204);
+
+        assertEquals(2, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testPlaceHold_SoldOut() {
+        Integer commodityId = createCommodity(1);
+
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"seats\": 2}")
+            .when().post("/commodities/" + commodityId + "/holds")
+            .then()
+            .statusCode(400);
+    }
+
+    @Test
+    public void testHold_ExpiresAndReturnsSeats() throws InterruptedException {
+        Integer commodityId = createCommodity(2);
+
+        String holdId = given()
+            .contentType(ContentType.JSON)
+            .body("{\"seats\": 2}")
+            .when().post("/commodities/" + commodityId + "/holds")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+
+        assertEquals(0, quantityOf(commodityId));
+
+        int quantity = 0;
+        for (int attempt = 0; attempt < 50 && quantity != 2; attempt++) {
+            Thread.sleep(100);
+            quantity = quantityOf(commodityId);
+        }
+        assertEquals(2, quantity);
+
+        // An expired hold can no longer be redeemed
+        given()
+            .contentType(ContentType.JSON)
+            .queryParam("customerId", 2)
+            .queryParam("commodityId", commodityId)
+            .queryParam("holdId", holdId)
+            .when().post("/bookings")
+            .then()
+            .statusCode(anyOf(is(404), is(410)));
+    }
+}
@@ -0,0 +1,169 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput and p99 latency of the blocking resources with 1,000 concurrent clients, run once per
+ * execution mode by {@link WorkerPoolBenchmarkTest} and {@link VirtualThreadBenchmarkTest}.
+ *
+ * Each client reads through the cached GET endpoints, then writes: it creates a commodity, books
+ * and cancels a seat, makes a guest booking and runs the travel saga against the local hotel and
+ * taxi stubs, so the run covers the JTA, Hibernate and JDBC work of every blocking write path.
+ *
+ * The mode is fixed when the application is built, so each subclass selects it with a test profile;
+ * {@code mvn test -Dvirtual-threads -Dtest='*BenchmarkTest'} runs both and logs the figures side by side.
+ */
+public abstract class ThreadingBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(ThreadingBenchmark.class.getName());
+
+    private static final int CLIENTS = 1_000;
+    private static final List<String> PATHS = List.of("/customers/1", "/commodities/1", "/bookings/1", "/bookings?limit=20");
+    private static final int WRITES = 5;
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final AtomicInteger guests = new AtomicInteger();
+
+    /**
+     * Builds the application with the resources on the worker pool or on virtual threads.
+     */
+    static class Mode implements QuarkusTestProfile {
+        private final boolean virtualThreads;
+
+        Mode(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            Map<String, String> config = new HashMap<>();
+            config.put("quarkus.virtual-threads.enabled", String.valueOf(virtualThreads));
+            // Every client runs a saga at once, so the remote calls must not be shed by their bulkheads
+            for (String call : List.of("bookHotel", "bookTaxi")) {
+                String prefix = "uk.ac.newcastle.enterprisemiddleware.client.TravelServiceGateway/" + call + "/Bulkhead/";
+                config.put(prefix + "value", String.valueOf(CLIENTS));
+                config.put(prefix + "waitingTaskQueue", String.valueOf(CLIENTS));
+            }
+            return config;
+        }
+    }
+
+    @TestHTTPResource("/")
+    URI root;
+
+    @ConfigProperty(name = "quarkus.virtual-threads.enabled")
+    boolean virtualThreads;
+
+    /**
+     * One client: each read path in turn, then the write paths, recording the latency of every request.
+     */
+    private CompletableFuture<Void> client(HttpClient http, ConcurrentLinkedQueue<Long> latencies) {
+        CompletableFuture<String> requests = CompletableFuture.completedFuture(null);
+        for (String path : PATHS) {
+            requests = requests.thenCompose(ignored -> send(http, get(path), 200, latencies));
+        }
+        int guest = guests.incrementAndGet();
+        return requests
+                .thenCompose(ignored -> send(http, post("/commodities", """
+                        {"name": "Benchmark Flight %d", "description": "Threading benchmark", "price": 99.99, "quantity": 10}
+                        """.formatted(guest)), 201, latencies))
+                .thenApply(commodity -> id(commodity))
+                .thenCompose(commodityId -> send(http,
+                                post("/bookings?customerId=1&seats=1&commodityId=" + commodityId, ""), 201, latencies)
+                        .thenCompose(booking -> send(http, HttpRequest.newBuilder(root.resolve("/bookings/" + id(booking)))
+                                .timeout(TIMEOUT).DELETE().build(), 204, latencies))
+                        .thenCompose(ignored -> send(http, post("/guest-bookings", """
+                                {"customer": {"firstName": "Bench", "lastName": "Guest", "email": "bench.guest%d@test.com",
+                                 "phoneNumber": "0123456789"}, "commodityId": %d}
+                                """.formatted(guest, commodityId)), 201, latencies))
+                        .thenCompose(ignored -> send(http, post("/travel-agent/bookings", """
+                                {"customerId": 1, "hotelId": 7, "flightCommodityId": %d, "date": "2026-12-01",
+                                 "taxiId": 3, "passengerCount": 1}
+                                """.formatted(commodityId)), 201, latencies)))
+                .thenAccept(ignored -> { });
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(root.resolve(path)).timeout(TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(root.resolve(path)).timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static CompletableFuture<String> send(HttpClient http, HttpRequest request, int status,
+                                                  ConcurrentLinkedQueue<Long> latencies) {
+        long start = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    assertEquals(status, response.statusCode(), request.method() + " " + request.uri() + ": " + response.body());
+                    latencies.add(System.nanoTime() - start);
+                    return response.body();
+                });
+    }
+
+    private static long id(String json) {
+        try {
+            return JSON.readTree(json).get("id").asLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Hook around the measured run, e.g. to record pinning; the default does nothing.
+     */
+    void measured(Runnable run) {
+        run.run();
+    }
+
+    @Test
+    public void testThousandConcurrentClients() {
+        HttpClient http = HttpClient.newHttpClient();
+        // Warm up every endpoint
+        client(http, new ConcurrentLinkedQueue<>()).join();
+
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        long[] nanos = new long[1];
+        measured(() -> {
+            long start = System.nanoTime();
+            List<CompletableFuture<Void>> clients = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(client(http, latencies));
+            }
+            CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+            nanos[0] = System.nanoTime() - start;
+        });
+
+        List<Long> sorted = latencies.stream().sorted().toList();
+        assertEquals(CLIENTS * (PATHS.size() + WRITES), sorted.size());
+        LOG.info(String.format("%s: %d clients, %d requests, %.0f requests/sec, p50 %.1f ms, p99 %.1f ms",
+                virtualThreads ? "virtual threads" : "worker pool", CLIENTS, sorted.size(), sorted.size() / (nanos[0] / 1e9),
+                sorted.get(sorted.size() / 2) / 1e6, sorted.get(sorted.size() * 99 / 100) / 1e6));
+    }
+}
@@ -0,0 +1,124 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs many non-blocking travel agent sagas at once against a small worker pool, first with instant
+ * and then with slow remote services. If each saga held a worker thread for its remote calls, the
+ * slow run would take a latency per wave of pool-size sagas longer; without blocking it takes
+ * about one latency longer.
+ */
+@QuarkusTest
+@TestProfile(TravelAgentLoadTest.SmallWorkerPool.class)
+public class TravelAgentLoadTest {
+
+    private static final Logger LOG = Logger.getLogger(TravelAgentLoadTest.class.getName());
+
+    private static final int WORKER_THREADS = 8;
+    private static final int SAGAS = 64;
+    private static final long LATENCY_MILLIS = 1000;
+
+    public static class SmallWorkerPool implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // The client connection pools (50 by default) and the bulkheads must not be the limit either
+            String gateway = "uk.ac.newcastle.enterprisemiddleware.client.TravelServiceGateway/";
+            return Map.of("quarkus.thread-pool.core-threads", "1",
+                    "quarkus.thread-pool.max-threads", String.valueOf(WORKER_THREADS),
+                    "quarkus.rest-client.hotel-api.connection-pool-size", String.valueOf(2 * SAGAS),
+                    "quarkus.rest-client.taxi-api.connection-pool-size", String.valueOf(2 * SAGAS),
+                    gateway + "bookHotel/Bulkhead/value", String.valueOf(SAGAS),
+                    gateway + "bookTaxi/Bulkhead/value", String.valueOf(SAGAS));
+        }
+    }
+
+    @TestHTTPResource("/travel-agent/bookings/async")
+    URI asyncSaga;
+
+    @AfterEach
+    public void resetStubs() {
+        TravelServiceStubResource.reset();
+    }
+
+    private Integer createCommodity() {
+        return given()
+            .contentType(ContentType.JSON)
+            .body("""
+                {
+                    "name": "Load Flight",
+                    "description": "Travel agent load test flight",
+                    "price": 99.99,
+                    "quantity": 5
+                }
+                """)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+    }
+
+    private CompletableFuture<HttpResponse<String>> bookTravel(HttpClient client, Integer commodityId) {
+        String request = """
+            {"customerId": 1, "hotelId": 7, "flightCommodityId": %d, "date": "2026-12-01", "taxiId": 3}
+            """.formatted(commodityId);
+        return client.sendAsync(HttpRequest.newBuilder(asyncSaga)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(request))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private long runSagas(HttpClient client, List<Integer> commodityIds) {
+        long start = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> sagas = commodityIds.stream()
+                .map(commodityId -> bookTravel(client, commodityId))
+                .toList();
+        long created = sagas.stream().map(CompletableFuture::join).filter(response -> response.statusCode() == 201).count();
+        assertEquals(commodityIds.size(), created);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    @Test
+    public void testConcurrentSagasExceedWorkerPool() {
+        // Customer 1 can book each flight once, so every saga gets its own
+        List<Integer> commodityIds = new ArrayList<>();
+        for (int i = 0; i < 2 * SAGAS + 1; i++) {
+            commodityIds.add(createCommodity());
+        }
+        HttpClient client = HttpClient.newHttpClient();
+        assertEquals(201, bookTravel(client, commodityIds.remove(0)).join().statusCode());
+
+        long baseMillis = runSagas(client, commodityIds.subList(0, SAGAS));
+        TravelServiceStubResource.hotelLatencyMillis = LATENCY_MILLIS;
+        TravelServiceStubResource.taxiLatencyMillis = LATENCY_MILLIS;
+        long slowMillis = runSagas(client, commodityIds.subList(SAGAS, 2 * SAGAS));
+        LOG.info(SAGAS + " concurrent sagas on " + WORKER_THREADS + " worker threads took " + baseMillis
+                + " ms with instant and " + slowMillis + " ms with " + LATENCY_MILLIS + " ms remote calls");
+
+        // Blocking sagas would add the latency once per wave of WORKER_THREADS sagas
+        long blockingExtraMillis = SAGAS / WORKER_THREADS * LATENCY_MILLIS;
+        long extraMillis = slowMillis - baseMillis;
+        assertTrue(extraMillis < blockingExtraMillis / 2,
+                "Remote latency added " + extraMillis + " ms, blocking would add " + blockingExtraMillis);
+    }
+}
@@ -0,0 +1,221 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * REST Assured tests for the travel agent saga, against the local hotel and taxi stubs in
+ * {@link TravelServiceStubResource}.
+ */
+@QuarkusTest
+public class TravelAgentResourceTest {
+
+    private static final Logger LOG = Logger.getLogger(TravelAgentResourceTest.class.getName());
+
+    private static final long LATENCY_MILLIS = 600;
+
+    @AfterEach
+    public void resetStubs() {
+        TravelServiceStubResource.reset();
+    }
+
+    private Integer createCommodity(int quantity) {
+        String newCommodity = """
+            {
+                "name": "Saga Flight",
+                "description": "Travel agent test flight",
+                "price": 249.99,
+                "quantity": %d
+            }
+            """.formatted(quantity);
+
+        return given()
+            .contentType(ContentType.JSON)
+            .body(newCommodity)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+    }
+
+    private int quantityOf(Integer commodityId) {
+        return given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .extract().path("quantity");
+    }
+
+    private ValidatableResponse bookTravel(Integer commodityId) {
+        return bookTravel(commodityId, "/travel-agent/bookings");
+    }
+
+    private ValidatableResponse bookTravel(Integer commodityId, String path) {
+        String request = """
+            {
+                "customerId": 1,
+                "hotelId": 7,
+                "flightCommodityId": %d,
+                "date": "2026-12-01",
+                "taxiId": 3,
+                "passengerCount": 2
+            }
+            """.formatted(commodityId);
+
+        return given()
+            .contentType(ContentType.JSON)
+            .body(request)
+            .when().post(path)
+            .then();
+    }
+
+    @Test
+    public void testHotelAndTaxiAreBookedConcurrently() {
+        // Warm up the REST clients so connection setup is not timed
+        bookTravel(createCommodity(2)).statusCode(201);
+
+        TravelServiceStubResource.hotelLatencyMillis = LATENCY_MILLIS;
+        TravelServiceStubResource.taxiLatencyMillis = LATENCY_MILLIS;
+        Integer commodityId = createCommodity(5);
+
+        long start = System.nanoTime();
+        bookTravel(commodityId)
+            .statusCode(201)
+            .body("status", equalTo("SUCCESS"))
+            .body("hotelBookingId", notNullValue())
+            .body("flightBookingId", notNullValue())
+            .body("taxiBookingId", notNullValue());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        LOG.info("Saga with two " + LATENCY_MILLIS + " ms remote calls took " + millis + " ms");
+
+        // Sequential calls would take at least twice the latency
+        assertTrue(millis < 2 * LATENCY_MILLIS - 100, "Saga took " + millis + " ms");
+        assertEquals(3, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testTaxiFailureCancelsHotelAndFlight() {
+        TravelServiceStubResource.taxiFails = true;
+        Integer commodityId = createCommodity(5);
+
+        Integer hotelBookingId = bookTravel(commodityId)
+            .statusCode(500)
+            .body("status", equalTo("FAILED"))
+            .body("taxiBookingId", nullValue())
+            .body("flightBookingId", notNullValue())
+            .extract().path("hotelBookingId");
+
+        assertEquals(List.of(hotelBookingId.longValue()), TravelServiceStubResource.cancelledHotelBookings);
+        assertTrue(TravelServiceStubResource.cancelledTaxiBookings.isEmpty());
+        assertEquals(5, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testHotelFailureCancelsTaxiAndFlight() {
+        TravelServiceStubResource.hotelFails = true;
+        Integer commodityId = createCommodity(5);
+
+        Integer taxiBookingId = bookTravel(commodityId)
+            .statusCode(500)
+            .body("status", equalTo("FAILED"))
+            .body("hotelBookingId", nullValue())
+            .extract().path("taxiBookingId");
+
+        assertEquals(List.of(taxiBookingId.longValue()), TravelServiceStubResource.cancelledTaxiBookings);
+        assertTrue(TravelServiceStubResource.cancelledHotelBookings.isEmpty());
+        assertEquals(5, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testSoldOutFlightMakesNoRemoteBookings() {
+        Integer commodityId = createCommodity(1);
+
+        bookTravel(commodityId)
+            .statusCode(400)
+            .body("status", equalTo("FAILED"))
+            .body("hotelBookingId", nullValue())
+            .body("taxiBookingId", nullValue());
+
+        assertTrue(TravelServiceStubResource.cancelledHotelBookings.isEmpty());
+        assertTrue(TravelServiceStubResource.cancelledTaxiBookings.isEmpty());
+        assertEquals(1, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testAlreadyBookedFlightCancelsHotelAndTaxiWithConflict() {
+        Integer commodityId = createCommodity(5);
+        bookTravel(commodityId).statusCode(201);
+        TravelServiceStubResource.reset();
+
+        // The same customer cannot book the flight twice; the held seats and remote legs are given back
+        Integer hotelBookingId = bookTravel(commodityId)
+            .statusCode(409)
+            .body("status", equalTo("FAILED"))
+            .body("flightBookingId", nullValue())
+            .extract().path("hotelBookingId");
+
+        assertEquals(List.of(hotelBookingId.longValue()), TravelServiceStubResource.cancelledHotelBookings);
+        assertEquals(1, TravelServiceStubResource.cancelledTaxiBookings.size());
+        assertEquals(3, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testAsyncSagaBooksAllLegs() {
+        TravelServiceStubResource.hotelLatencyMillis = LATENCY_MILLIS;
+        TravelServiceStubResource.taxiLatencyMillis = LATENCY_MILLIS;
+        Integer commodityId = createCommodity(5);
+
+        long start = System.nanoTime();
+        bookTravel(commodityId, "/travel-agent/bookings/async")
+            .statusCode(201)
+            .body("status", equalTo("SUCCESS"))
+            .body("hotelBookingId", notNullValue())
+            .body("flightBookingId", notNullValue())
+            .body("taxiBookingId", notNullValue());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(millis < 2 * LATENCY_MILLIS - 100, "Saga took " + millis + " ms");
+        assertEquals(3, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testAsyncSagaTaxiFailureCancelsHotelAndFlight() {
+        TravelServiceStubResource.taxiFails = true;
+        Integer commodityId = createCommodity(5);
+
+        Integer hotelBookingId = bookTravel(commodityId, "/travel-agent/bookings/async")
+            .statusCode(500)
+            .body("status", equalTo("FAILED"))
+            .body("taxiBookingId", nullValue())
+            .body("flightBookingId", notNullValue())
+            .extract().path("hotelBookingId");
+
+        assertEquals(List.of(hotelBookingId.longValue()), TravelServiceStubResource.cancelledHotelBookings);
+        assertTrue(TravelServiceStubResource.cancelledTaxiBookings.isEmpty());
+        assertEquals(5, quantityOf(commodityId));
+    }
+
+    @Test
+    public void testAsyncSagaSoldOutFlightMakesNoRemoteBookings() {
+        Integer commodityId = createCommodity(1);
+
+        bookTravel(commodityId, "/travel-agent/bookings/async")
+            .statusCode(400)
+            .body("status", equalTo("FAILED"))
+            .body("hotelBookingId", nullValue())
+            .body("taxiBookingId", nullValue());
+
+        assertEquals(1, quantityOf(commodityId));
+    }
+}
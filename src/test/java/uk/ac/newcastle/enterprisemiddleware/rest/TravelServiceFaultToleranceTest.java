@@ -0,0 +1,210 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import io.smallrye.faulttolerance.api.CircuitBreakerMaintenance;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Timeouts, circuit breakers and bulkheads of the hotel and taxi calls, with small limits and the
+ * {@link TravelServiceStubResource} switched between slow, failing and healthy.
+ */
+@QuarkusTest
+@TestProfile(TravelServiceFaultToleranceTest.SmallLimits.class)
+public class TravelServiceFaultToleranceTest {
+
+    private static final long TIMEOUT_MILLIS = 500;
+    private static final int REQUEST_VOLUME = 4;
+    private static final long OPEN_MILLIS = 1000;
+    private static final int BULKHEAD = 2;
+    private static final int QUEUE = 1;
+
+    public static class SmallLimits implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            String gateway = "uk.ac.newcastle.enterprisemiddleware.client.TravelServiceGateway/";
+            return Map.of(gateway + "bookHotel/Timeout/value", String.valueOf(TIMEOUT_MILLIS),
+                    gateway + "bookHotel/Bulkhead/value", String.valueOf(BULKHEAD),
+                    gateway + "bookHotel/Bulkhead/waitingTaskQueue", String.valueOf(QUEUE),
+                    gateway + "bookHotel/CircuitBreaker/requestVolumeThreshold", String.valueOf(REQUEST_VOLUME),
+                    gateway + "bookHotel/CircuitBreaker/delay", String.valueOf(OPEN_MILLIS),
+                    gateway + "bookTaxi/Timeout/value", String.valueOf(TIMEOUT_MILLIS));
+        }
+    }
+
+    @Inject
+    CircuitBreakerMaintenance circuitBreakers;
+
+    @TestHTTPResource("/travel-agent/bookings/async")
+    URI asyncSaga;
+
+    @AfterEach
+    public void reset() {
+        TravelServiceStubResource.reset();
+        circuitBreakers.resetAll();
+    }
+
+    private Integer createCommodity() {
+        return given()
+            .contentType(ContentType.JSON)
+            .body("""
+                {
+                    "name": "Guarded Flight",
+                    "description": "Fault tolerance test flight",
+                    "price": 149.99,
+                    "quantity": 5
+                }
+                """)
+            .when().post("/commodities")
+            .then()
+            .statusCode(201)
+            .extract().path("id");
+    }
+
+    private int quantityOf(Integer commodityId) {
+        return given()
+            .when().get("/commodities/" + commodityId)
+            .then()
+            .statusCode(200)
+            .extract().path("quantity");
+    }
+
+    private static String travelRequest(Integer commodityId) {
+        return """
+            {"customerId": 1, "hotelId": 7, "flightCommodityId": %d, "date": "2026-12-01", "taxiId": 3}
+            """.formatted(commodityId);
+    }
+
+    private ValidatableResponse bookTravel(Integer commodityId) {
+        return given()
+            .contentType(ContentType.JSON)
+            .body(travelRequest(commodityId))
+            .when().post("/travel-agent/bookings")
+            .then();
+    }
+
+    private String hotelCircuit() {
+        return given()
+            .when().get("/travel-agent/health")
+            .then()
+            .statusCode(200)
+            .extract().path("hotelCircuit");
+    }
+
+    @Test
+    public void testSlowHotelTimesOutAndCompensates() {
+        TravelServiceStubResource.hotelLatencyMillis = 5000;
+        Integer commodityId = createCommodity();
+
+        long start = System.nanoTime();
+        Integer taxiBookingId = bookTravel(commodityId)
+            .statusCode(503)
+            .body("status", equalTo("FAILED"))
+            .body("hotelBookingId", nullValue())
+            .extract().path("taxiBookingId");
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(millis < 2 * TIMEOUT_MILLIS + 500, "Saga took " + millis + " ms");
+        assertEquals(List.of(taxiBookingId.longValue()), TravelServiceStubResource.cancelledTaxiBookings);
+        assertEquals(5, quantityOf(commodityId));
+
+        given()
+            .when().get("/q/metrics")
+            .then()
+            .statusCode(200)
+            .body(containsString("ft_timeout_calls_total{method=\"uk.ac.newcastle.enterprisemiddleware.client.TravelServiceGateway.bookHotel\",timedOut=\"true\"}"));
+    }
+
+    @Test
+    public void testFailingHotelOpensCircuitUntilHealthy() throws InterruptedException {
+        TravelServiceStubResource.hotelDown = true;
+        for (int i = 0; i < REQUEST_VOLUME; i++) {
+            bookTravel(createCommodity()).statusCode(500);
+        }
+        assertEquals("OPEN", hotelCircuit());
+
+        // While the circuit is open the hotel is not called and the saga fails fast
+        Integer commodityId = createCommodity();
+        bookTravel(commodityId)
+            .statusCode(503)
+            .body("status", equalTo("FAILED"))
+            .body("hotelBookingId", nullValue());
+        assertEquals(REQUEST_VOLUME, TravelServiceStubResource.hotelRequests.get());
+        assertEquals(5, quantityOf(commodityId));
+
+        given()
+            .when().get("/q/metrics")
+            .then()
+            .statusCode(200)
+            .body(containsString("ft_circuitbreaker_state_current{method=\"uk.ac.newcastle.enterprisemiddleware.client.TravelServiceGateway.bookHotel\",state=\"open\"} 1.0"));
+
+        // Once the hotel recovers, trial calls after the delay close the circuit again
+        TravelServiceStubResource.hotelDown = false;
+        Thread.sleep(OPEN_MILLIS + 200);
+        bookTravel(createCommodity()).statusCode(201);
+        bookTravel(createCommodity()).statusCode(201);
+        assertEquals("CLOSED", hotelCircuit());
+    }
+
+    @Test
+    public void testRejectionsDoNotOpenCircuit() {
+        TravelServiceStubResource.hotelFails = true;
+        for (int i = 0; i < 2 * REQUEST_VOLUME; i++) {
+            bookTravel(createCommodity()).statusCode(500);
+        }
+
+        assertEquals("CLOSED", hotelCircuit());
+        assertEquals(2 * REQUEST_VOLUME, TravelServiceStubResource.hotelRequests.get());
+    }
+
+    @Test
+    public void testBulkheadRejectsExcessHotelCalls() {
+        // Short enough that a queued call still finishes within the timeout, which includes time in the queue
+        TravelServiceStubResource.hotelLatencyMillis = TIMEOUT_MILLIS / 4;
+        int sagas = 2 * (BULKHEAD + QUEUE);
+        List<Integer> commodityIds = IntStream.range(0, sagas).mapToObj(i -> createCommodity()).toList();
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<CompletableFuture<HttpResponse<String>>> responses = commodityIds.stream()
+                .map(commodityId -> client.sendAsync(HttpRequest.newBuilder(asyncSaga)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(travelRequest(commodityId)))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofString()))
+                .toList();
+        long rejected = responses.stream().map(CompletableFuture::join).filter(response -> response.statusCode() == 503).count();
+
+        // The calls beyond the bulkhead and its queue are rejected without reaching the hotel
+        assertTrue(rejected > 0, "No saga was rejected");
+        assertEquals(sagas - rejected, TravelServiceStubResource.hotelRequests.get());
+        for (Integer commodityId : commodityIds) {
+            assertTrue(quantityOf(commodityId) >= 4);
+        }
+
+        given()
+            .when().get("/q/metrics")
+            .then()
+            .statusCode(200)
+            .body(containsString("ft_bulkhead_calls_total{bulkheadResult=\"rejected\",method=\"uk.ac.newcastle.enterprisemiddleware.client.TravelServiceGateway.bookHotel\"}"));
+    }
+}
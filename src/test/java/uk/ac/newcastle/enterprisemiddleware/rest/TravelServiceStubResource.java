@@ -0,0 +1,107 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.smallrye.mutiny.Uni;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import uk.ac.newcastle.enterprisemiddleware.client.HotelBookingRequest;
+import uk.ac.newcastle.enterprisemiddleware.client.HotelBookingResponse;
+import uk.ac.newcastle.enterprisemiddleware.client.TaxiBookingRequest;
+import uk.ac.newcastle.enterprisemiddleware.client.TaxiBookingResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-ins for the external hotel and taxi services, with a configurable latency, rejection
+ * (409, fully booked) and outage (503) per service, that count booking requests and record which
+ * bookings were cancelled.
+ */
+@Path("/stub")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class TravelServiceStubResource {
+
+    static volatile long hotelLatencyMillis;
+    static volatile long taxiLatencyMillis;
+    static volatile boolean hotelFails;
+    static volatile boolean taxiFails;
+    static volatile boolean hotelDown;
+    static volatile boolean taxiDown;
+    static final AtomicInteger hotelRequests = new AtomicInteger();
+    static final AtomicInteger taxiRequests = new AtomicInteger();
+    static final List<Long> cancelledHotelBookings = new CopyOnWriteArrayList<>();
+    static final List<Long> cancelledTaxiBookings = new CopyOnWriteArrayList<>();
+
+    private static final AtomicLong ids = new AtomicLong(1000);
+
+    /**
+     * Restore the default behaviour: no latency, no failures, nothing requested or cancelled.
+     */
+    static void reset() {
+        hotelLatencyMillis = 0;
+        taxiLatencyMillis = 0;
+        hotelFails = false;
+        taxiFails = false;
+        hotelDown = false;
+        taxiDown = false;
+        hotelRequests.set(0);
+        taxiRequests.set(0);
+        cancelledHotelBookings.clear();
+        cancelledTaxiBookings.clear();
+    }
+
+    @POST
+    @Path("/hotel/bookings")
+    public Uni<HotelBookingResponse> createHotelBooking(HotelBookingRequest request) {
+        hotelRequests.incrementAndGet();
+        HotelBookingResponse response = new HotelBookingResponse();
+        response.setId(ids.incrementAndGet());
+        response.setCustomerId(request.getCustomerId());
+        response.setHotelId(request.getHotelId());
+        response.setDate(request.getDate());
+        return respond(response, hotelLatencyMillis, hotelFails, hotelDown, "Hotel");
+    }
+
+    @DELETE
+    @Path("/hotel/bookings/{id}")
+    public void cancelHotelBooking(@PathParam("id") Long id) {
+        cancelledHotelBookings.add(id);
+    }
+
+    @POST
+    @Path("/taxi/bookings")
+    public Uni<TaxiBookingResponse> createTaxiBooking(TaxiBookingRequest request) {
+        taxiRequests.incrementAndGet();
+        TaxiBookingResponse response = new TaxiBookingResponse();
+        response.setId(ids.incrementAndGet());
+        response.setCustomerId(request.getCustomerId());
+        response.setTaxiId(request.getTaxiId());
+        return respond(response, taxiLatencyMillis, taxiFails, taxiDown, "Taxi");
+    }
+
+    @DELETE
+    @Path("/taxi/bookings/{id}")
+    public Response cancelTaxiBooking(@PathParam("id") Long id) {
+        cancelledTaxiBookings.add(id);
+        return Response.noContent().build();
+    }
+
+    /**
+     * Answer after the latency without holding a thread, so the stubs never compete with the
+     * saga for worker threads.
+     */
+    private static <T> Uni<T> respond(T response, long latencyMillis, boolean fails, boolean down, String service) {
+        Uni<T> answer = down
+                ? Uni.createFrom().failure(new WebApplicationException(service + " is down", Response.Status.SERVICE_UNAVAILABLE))
+                : fails
+                ? Uni.createFrom().failure(new WebApplicationException(service + " is fully booked", Response.Status.CONFLICT))
+                : Uni.createFrom().item(response);
+        return latencyMillis == 0 ? answer
+                : Uni.createFrom().voidItem().onItem().delayIt().by(Duration.ofMillis(latencyMillis))
+                        .replaceWith(answer);
+    }
+}
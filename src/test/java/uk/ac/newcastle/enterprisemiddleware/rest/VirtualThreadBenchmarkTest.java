@@ -0,0 +1,63 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ThreadingBenchmark} with the resources on virtual threads (Java 21 or later).
+ *
+ * The measured run also records every jdk.VirtualThreadPinned event, so a request whose JTA,
+ * Hibernate or JDBC work blocks while pinning its carrier thread fails the test with the stack.
+ */
+@QuarkusTest
+@TestProfile(VirtualThreadBenchmarkTest.VirtualThreads.class)
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualThreadBenchmarkTest extends ThreadingBenchmark {
+
+    private static final Logger LOG = Logger.getLogger(VirtualThreadBenchmarkTest.class.getName());
+
+    public static class VirtualThreads extends Mode {
+        public VirtualThreads() {
+            super(true);
+        }
+    }
+
+    @Override
+    void measured(Runnable run) {
+        ConcurrentLinkedQueue<String> pinned = new ConcurrentLinkedQueue<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withStackTrace().withThreshold(Duration.ZERO);
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.add(stack(event)));
+            recording.startAsync();
+            run.run();
+            // Events reach the stream when JFR flushes, about once a second
+            Thread.sleep(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        pinned.forEach(stack -> LOG.warning("Pinned virtual thread:\n" + stack));
+        assertTrue(pinned.isEmpty(), pinned.size() + " pinned virtual thread events, first:\n" + pinned.peek());
+    }
+
+    private static String stack(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        return frames.stream()
+                .map(frame -> "    at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,18 @@
+package uk.ac.newcastle.enterprisemiddleware.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+
+/**
+ * {@link ThreadingBenchmark} with the resources on the worker pool.
+ */
+@QuarkusTest
+@TestProfile(WorkerPoolBenchmarkTest.WorkerPool.class)
+public class WorkerPoolBenchmarkTest extends ThreadingBenchmark {
+
+    public static class WorkerPool extends Mode {
+        public WorkerPool() {
+            super(false);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recall and search cost of {@link CommoditySearchIndex} over a large synthetic catalog, where
+ * most trigrams of a common query occur in thousands of commodities.
+ */
+public class CommoditySearchIndexTest {
+
+    private static final Logger LOG = Logger.getLogger(CommoditySearchIndexTest.class.getName());
+
+    private static final int COMMODITIES = 50_000;
+    private static final String[] QUERIES = {"flight london to paris", "economy seat", "zanzibar", "fl", "rome",
+            "vienna prague", "seat from oslo"};
+    private static final String[] CITIES = {"London", "Paris", "Berlin", "Madrid", "Rome", "Lisbon", "Vienna", "Prague",
+            "Dublin", "Oslo", "Athens", "Warsaw"};
+
+    private static CommoditySearchIndex index;
+    private static final Map<Long, String[]> texts = new HashMap<>();
+
+    @BeforeAll
+    public static void buildCatalog() {
+        index = new CommoditySearchIndex();
+        index.minSimilarity = 0.5;
+        Random random = new Random(42);
+        for (long id = 1; id <= COMMODITIES; id++) {
+            String from = CITIES[random.nextInt(CITIES.length)];
+            String to = CITIES[random.nextInt(CITIES.length)];
+            add(id, "Flight " + from + " to " + to + " " + id, "Economy seat from " + from + " to " + to);
+        }
+        add(COMMODITIES + 1L, "Flight to Zanzibar", "Beach holiday");
+    }
+
+    private static void add(Long id, String name, String description) {
+        index.index(id, name, description);
+        texts.put(id, new String[]{" " + name.toLowerCase(Locale.ROOT) + " ", " " + description.toLowerCase(Locale.ROOT) + " "});
+    }
+
+    /**
+     * The matches of a query found by checking every commodity, for queries of lower-case words.
+     */
+    private static long bruteForceMatches(String query) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            grams.add(query.substring(i, i + 3));
+        }
+        int required = (int) Math.ceil(grams.size() * 0.5);
+        return texts.values().stream()
+                .filter(text -> Math.max(grams.stream().filter(text[0]::contains).count(),
+                        grams.stream().filter(text[1]::contains).count()) >= required)
+                .count();
+    }
+
+    @Test
+    public void testRareQueryFindsItsCommodity() {
+        assertEquals(List.of(COMMODITIES + 1L), index.search("Zanzibr", 1));
+    }
+
+    @Test
+    public void testShortQueryMatchesWordPrefixesInIdOrder() {
+        assertEquals(List.of(1L, 2L, 3L), index.search("fl", 3));
+        assertEquals(List.of(), index.search("q", 3));
+    }
+
+    @Test
+    public void testCommonQueryReturnsFullPage() {
+        List<Long> ids = index.search("flight london to paris", 20);
+        assertEquals(20, ids.size());
+    }
+
+    @Test
+    public void testEveryMatchIsFound() {
+        for (String query : QUERIES) {
+            if (query.length() >= 3) {
+                assertEquals(bruteForceMatches(query), index.search(query, COMMODITIES + 1).size(), query);
+            }
+        }
+    }
+
+    @Test
+    public void testSearchCost() {
+        double[] selective = measure("zanzibar", "fl", "ab");
+        double[] common = measure(QUERIES);
+        LOG.info(String.format("Search over %d commodities: rare and short queries mean %.1f us, p99 %.1f us; "
+                + "query mix mean %.1f us, p99 %.1f us", COMMODITIES, selective[0], selective[1], common[0], common[1]));
+
+        // Only rare trigrams and prefixes are independent of the catalog size; common trigrams check most commodities
+        assertTrue(selective[1] < 1_000, "p99 of rare and short queries was " + selective[1] + " us");
+    }
+
+    /**
+     * @return the mean and p99 search time of the queries, in microseconds
+     */
+    private static double[] measure(String... queries) {
+        for (int i = 0; i < 200; i++) {
+            index.search(queries[i % queries.length], 20);
+        }
+        int runs = 100 * queries.length;
+        long[] nanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            index.search(queries[i % queries.length], 20);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return new double[]{Arrays.stream(nanos).average().orElse(0) / 1000.0, nanos[runs * 99 / 100] / 1000.0};
+    }
+}
@@ -0,0 +1,72 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.repository.CommodityRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A booking made through {@link IdempotencyService#executeInTransaction} commits together with
+ * its stored response, or not at all.
+ */
+@QuarkusTest
+public class IdempotencyServiceTest {
+
+    @Inject
+    IdempotencyService idempotencyService;
+
+    @Inject
+    BookingService bookingService;
+
+    @Inject
+    CommodityService commodityService;
+
+    @Inject
+    CommodityRepository commodityRepository;
+
+    /**
+     * A response entity that cannot be serialized, so storing the record fails.
+     */
+    public static class Unstorable {
+        public String getValue() {
+            throw new IllegalStateException("not serializable");
+        }
+    }
+
+    private int quantityOf(Long id) {
+        return QuarkusTransaction.requiringNew().call(() -> commodityRepository.findById(id).getQuantity());
+    }
+
+    @Test
+    public void testBookingRollsBackWhenResponseCannotBeStored() {
+        Long commodityId = commodityService.createCommodity(
+                new Commodity("Idempotent Flight", "Idempotency record test", 129.99, 3)).getId();
+        String key = UUID.randomUUID().toString();
+        List<Object> request = List.of(1L, commodityId);
+
+        assertThrows(RuntimeException.class, () -> idempotencyService.executeInTransaction("test", key, request, () -> {
+            bookingService.createBooking(1L, commodityId, 1, null);
+            return Response.status(Response.Status.CREATED).entity(new Unstorable()).build();
+        }));
+        assertEquals(3, quantityOf(commodityId));
+
+        // Nothing was recorded or booked, so the retry books the seat instead of failing as a duplicate
+        Response retry = idempotencyService.executeInTransaction("test", key, request, () ->
+                Response.status(Response.Status.CREATED)
+                        .entity(bookingService.createBooking(1L, commodityId, 1, null).getId())
+                        .build());
+        assertEquals(201, retry.getStatus());
+        assertNull(retry.getHeaderString(IdempotencyService.REPLAYED_HEADER));
+        assertEquals(2, quantityOf(commodityId));
+    }
+}
@@ -0,0 +1,105 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.repository.CommodityRepository;
+import uk.ac.newcastle.enterprisemiddleware.repository.InventoryCheckpointRepository;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Crash recovery and quantity updates of the inventory ledger. Flushes are effectively disabled, so
+ * booked seats stay pending in memory until the test decides otherwise.
+ */
+@QuarkusTest
+@TestProfile(InventoryLedgerRecoveryTest.LedgerWithoutFlush.class)
+public class InventoryLedgerRecoveryTest {
+
+    public static class LedgerWithoutFlush implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "booking.inventory.ledger.enabled", "true",
+                    "booking.inventory.ledger.flush-interval", "1h");
+        }
+    }
+
+    @Inject
+    InventoryLedger ledger;
+
+    @Inject
+    CommodityService commodityService;
+
+    @Inject
+    BookingService bookingService;
+
+    @Inject
+    CommodityRepository commodityRepository;
+
+    @Inject
+    InventoryCheckpointRepository checkpointRepository;
+
+    private Long createCommodity(int quantity) {
+        return commodityService.createCommodity(new Commodity("Ledger Recovery Flight", "Ledger recovery test", 99.99, quantity))
+                .getId();
+    }
+
+    private int quantityOf(Long id) {
+        return QuarkusTransaction.requiringNew().call(() -> commodityRepository.findById(id).getQuantity());
+    }
+
+    private long checkpointOf(Long id) {
+        return QuarkusTransaction.requiringNew().call(() -> checkpointRepository.findById(id).getBookedSeats());
+    }
+
+    private int remainingSeats(Long id) {
+        return QuarkusTransaction.requiringNew().call(() -> ledger.takeUpTo(id, 1000));
+    }
+
+    @Test
+    public void testRestartReconcilesUnflushedBookings() {
+        Long id = createCommodity(5);
+        bookingService.createBooking(1L, id, 2, null);
+
+        // Committed but not flushed: the column and checkpoint still show no bookings
+        assertEquals(5, quantityOf(id));
+        assertEquals(0, checkpointOf(id));
+
+        // A restart loses the pending change and must recover it from the Booking table
+        ledger.onStart(null);
+
+        assertEquals(3, quantityOf(id));
+        assertEquals(2, checkpointOf(id));
+        assertEquals(3, remainingSeats(id));
+    }
+
+    @Test
+    public void testUpdateKeepsSeatsTakenByInFlightBooking() throws Exception {
+        Long id = createCommodity(5);
+        CountDownLatch taken = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> booking = CompletableFuture.supplyAsync(() -> QuarkusTransaction.requiringNew().call(() -> {
+            boolean result = ledger.take(id, 2);
+            taken.countDown();
+            updated.await();
+            return result;
+        }));
+        taken.await();
+        commodityService.updateCommodity(id, new Commodity("Ledger Recovery Flight", "Ledger recovery test", 99.99, 10));
+        updated.countDown();
+
+        // The two seats committed after the update still come off the new quantity
+        assertEquals(true, booking.get());
+        assertEquals(8, remainingSeats(id));
+    }
+}
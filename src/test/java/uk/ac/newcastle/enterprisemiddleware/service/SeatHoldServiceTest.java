@@ -0,0 +1,69 @@
+package uk.ac.newcastle.enterprisemiddleware.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import uk.ac.newcastle.enterprisemiddleware.entity.Commodity;
+import uk.ac.newcastle.enterprisemiddleware.repository.SeatHoldRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Expiry timeouts of seat holds: armed when a hold commits, cancelled when it is released or
+ * fully redeemed, so the expiry transaction never runs for those holds.
+ */
+@QuarkusTest
+public class SeatHoldServiceTest {
+
+    @Inject
+    SeatHoldService seatHoldService;
+
+    @Inject
+    CommodityService commodityService;
+
+    @Inject
+    BookingService bookingService;
+
+    @Inject
+    SeatHoldRepository seatHoldRepository;
+
+    private Long createCommodity() {
+        return commodityService.createCommodity(new Commodity("Hold Timer Flight", "Seat hold timer test", 149.99, 5))
+                .getId();
+    }
+
+    private boolean holdExists(String holdId) {
+        return QuarkusTransaction.requiringNew().call(() -> seatHoldRepository.findById(holdId) != null);
+    }
+
+    @Test
+    public void testReleaseCancelsTimeout() {
+        Long id = createCommodity();
+        int armed = seatHoldService.armedHolds();
+
+        String holdId = seatHoldService.placeHold(id, 2).getId();
+        assertEquals(armed + 1, seatHoldService.armedHolds());
+
+        seatHoldService.releaseHold(holdId, id);
+        assertEquals(armed, seatHoldService.armedHolds());
+    }
+
+    @Test
+    public void testFullRedemptionDeletesHoldAndCancelsTimeout() {
+        Long id = createCommodity();
+        int armed = seatHoldService.armedHolds();
+        String holdId = seatHoldService.placeHold(id, 2).getId();
+
+        // A partly redeemed hold keeps its timeout for the seats left
+        bookingService.createBooking(1L, id, 1, holdId);
+        assertTrue(holdExists(holdId));
+        assertEquals(armed + 1, seatHoldService.armedHolds());
+
+        bookingService.createBooking(2L, id, 1, holdId);
+        assertFalse(holdExists(holdId));
+        assertEquals(armed, seatHoldService.armedHolds());
+    }
+}
@@ -0,0 +1,116 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips the columnar format through {@link ColumnarReader}, and compares the size of the
+ * columnar booking export with CSV on synthetic booking rows shaped like production data: ascending
+ * ids, a few hundred dates, many customers and a small catalog.
+ */
+public class ColumnarWriterTest {
+
+    private static final Logger LOG = Logger.getLogger(ColumnarWriterTest.class.getName());
+
+    private static final int ROWS = 200_000;
+
+    @Test
+    public void testRoundTripAcrossChunksAndEncodings() throws IOException {
+        LinkedHashMap<String, ColumnarWriter.Type> columns = new LinkedHashMap<>();
+        columns.put("id", ColumnarWriter.Type.LONG);
+        columns.put("date", ColumnarWriter.Type.DATE);
+        columns.put("extreme", ColumnarWriter.Type.LONG);
+        columns.put("commodity", ColumnarWriter.Type.LONG);
+        columns.put("price", ColumnarWriter.Type.DOUBLE);
+        columns.put("discount", ColumnarWriter.Type.DOUBLE);
+        columns.put("mixed", ColumnarWriter.Type.LONG);
+
+        int chunkSize = 1000;
+        int rows = 2 * chunkSize + chunkSize / 2;
+        Random random = new Random(7);
+        List<Object[]> written = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ColumnarWriter writer = new ColumnarWriter(bytes, columns, chunkSize);
+        for (long id = 1; id <= rows; id++) {
+            long commodity = 1 + random.nextInt(20);
+            long[] extremes = {Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, random.nextLong()};
+            Object[] row = {id, LocalDate.of(2026, 1, 1).plusDays(random.nextInt(30)),
+                    extremes[random.nextInt(extremes.length)] ^ (id % 2 == 0 ? 0 : random.nextLong()),
+                    commodity, 50.0 + commodity * 0.25, random.nextDouble() * -1e7,
+                    // Constant in the first chunk, all distinct after it
+                    id <= chunkSize ? 42L : id * 31};
+            writer.write(row);
+            written.add(row);
+        }
+        writer.finish();
+
+        ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(columns, reader.getColumns());
+        List<Set<Byte>> encodings = new ArrayList<>();
+        columns.forEach((name, type) -> encodings.add(new HashSet<>()));
+        for (Object[] expected : written) {
+            assertArrayEquals(expected, reader.read());
+            for (int column = 0; column < expected.length; column++) {
+                encodings.get(column).add(reader.getEncoding(column));
+            }
+        }
+        assertNull(reader.read());
+
+        Set<Byte> plain = Set.of(ColumnarWriter.PLAIN);
+        Set<Byte> dictionary = Set.of(ColumnarWriter.DICTIONARY);
+        assertEquals(List.of(plain, dictionary, plain, dictionary, dictionary, plain,
+                Set.of(ColumnarWriter.PLAIN, ColumnarWriter.DICTIONARY)), encodings);
+    }
+
+    @Test
+    public void testColumnarIsSmallerThanCsv() throws IOException {
+        LinkedHashMap<String, ColumnarWriter.Type> columns = new LinkedHashMap<>();
+        columns.put("id", ColumnarWriter.Type.LONG);
+        columns.put("bookingDate", ColumnarWriter.Type.DATE);
+        columns.put("customerId", ColumnarWriter.Type.LONG);
+        columns.put("commodityId", ColumnarWriter.Type.LONG);
+        columns.put("seats", ColumnarWriter.Type.LONG);
+        columns.put("price", ColumnarWriter.Type.DOUBLE);
+
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        ByteArrayOutputStream columnarBytes = new ByteArrayOutputStream();
+        StringBuilder csv = new StringBuilder(String.join(",", columns.keySet())).append('\n');
+        long begin = System.nanoTime();
+        ColumnarWriter columnar = new ColumnarWriter(columnarBytes, columns, 8192);
+        for (long id = 1; id <= ROWS; id++) {
+            long commodity = 1 + random.nextInt(500);
+            Object[] row = {id, start.plusDays(id * 365 / ROWS), 1 + random.nextInt(100_000), commodity,
+                    1 + random.nextInt(4), 50.0 + commodity * 0.25};
+            columnar.write(row);
+            csv.append(row[0]).append(',').append(row[1]).append(',').append(row[2]).append(',')
+                    .append(row[3]).append(',').append(row[4]).append(',').append(row[5]).append('\n');
+        }
+        columnar.finish();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        double columnarPerRow = (double) columnarBytes.size() / ROWS;
+        double csvPerRow = (double) csv.toString().getBytes(StandardCharsets.UTF_8).length / ROWS;
+        LOG.info(String.format("%d bookings: columnar %.1f bytes/row, CSV %.1f bytes/row, both written in %.2f s",
+                ROWS, columnarPerRow, csvPerRow, seconds));
+        assertTrue(columnarPerRow < csvPerRow / 2,
+                "Expected columnar to be under half the CSV size but was " + columnarPerRow + " vs " + csvPerRow);
+    }
+}
@@ -0,0 +1,39 @@
+package uk.ac.newcastle.enterprisemiddleware.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Number formatting and quoting of {@link CsvWriter}, read back with {@link CsvReader}.
+ */
+public class CsvWriterTest {
+
+    @Test
+    public void testNumbersArePlainDecimals() {
+        assertEquals("10000000", CsvWriter.format(1.0E7));
+        assertEquals("0.0001", CsvWriter.format(1.0E-4));
+        assertEquals("599.99", CsvWriter.format(599.99));
+        assertEquals("50", CsvWriter.format(50.0));
+        assertEquals("0.1", CsvWriter.format(0.1f));
+        assertEquals("42", CsvWriter.format(42L));
+        assertEquals("2026-12-01", CsvWriter.format(LocalDate.of(2026, 12, 1)));
+        assertEquals("", CsvWriter.format(null));
+    }
+
+    @Test
+    public void testSpecialCharactersAreQuotedAndReadBack() throws IOException {
+        List<String> fields = List.of("plain", "a,b", "say \"hi\"", "two\nlines", "cr\r");
+        StringWriter out = new StringWriter();
+        new CsvWriter(out).write(fields.toArray());
+
+        assertEquals("plain,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",\"cr\r\"\n", out.toString());
+        assertEquals(fields, new CsvReader(new StringReader(out.toString())).next());
+    }
+}